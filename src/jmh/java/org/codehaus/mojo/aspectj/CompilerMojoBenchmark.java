@@ -0,0 +1,116 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the work the compile mojo does before it runs the compiler: resolving the sources and the classpath,
+ * assembling the arguments and deciding whether the previous build is up to date. The up-to-date check is the whole
+ * execution of a build without changes, so it should stay in the range of milliseconds even for large projects.
+ * <p>
+ * The static caches of the plugin are warm after the first invocation, as they are for all but the first module of a
+ * reactor build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompilerMojoBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    private int sources;
+
+    @Param({"100", "1000"})
+    private int artifacts;
+
+    private SyntheticProject project;
+
+    private List<String> sourceDirectories;
+
+    private List<String> outputDirectories;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        project = SyntheticProject.create(new File("target/jmh-projects"), sources, artifacts);
+        sourceDirectories = project.getProject().getCompileSourceRoots();
+        outputDirectories = Collections.singletonList(project.getProject().getBuild().getOutputDirectory());
+
+        // Record a previous build of the same sources and arguments, without running the compiler
+        AjcCompileMojo mojo = project.createMojo();
+        mojo.assembleArguments();
+        mojo.writeBuildFiles();
+        if (isBuildNeeded()) {
+            throw new IllegalStateException("The synthetic project is not up to date");
+        }
+    }
+
+    @Benchmark
+    public String createClassPath() {
+        return AjcHelper.createClassPath(project.getProject(), null, outputDirectories);
+    }
+
+    @Benchmark
+    public Set<String> getBuildFilesForSourceDirs() throws Exception {
+        return AjcHelper.getBuildFilesForSourceDirs(sourceDirectories, null, null);
+    }
+
+    @Benchmark
+    public List<String> assembleArguments() throws Exception {
+        AjcCompileMojo mojo = project.createMojo();
+        mojo.assembleArguments();
+        return mojo.ajcOptions;
+    }
+
+    @Benchmark
+    public boolean isBuildNeeded() throws Exception {
+        AjcCompileMojo mojo = project.createMojo();
+        mojo.assembleArguments();
+        return mojo.isBuildNeeded();
+    }
+
+    @Benchmark
+    public void upToDateExecution() throws Exception {
+        project.createMojo().execute();
+    }
+}
@@ -0,0 +1,141 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.testing.SilentLog;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.ReflectionUtils;
+
+/**
+ * A generated project with the given number of sources and dependencies, for benchmarks of the work the compiler
+ * mojos do before running the compiler. The sources and jars are only generated once, and reused by later benchmark
+ * runs.
+ */
+final class SyntheticProject {
+
+    private static final int SOURCES_PER_PACKAGE = 100;
+
+    private final File basedir;
+
+    private final MavenProject project;
+
+    private SyntheticProject(File basedir, MavenProject project) {
+        this.basedir = basedir;
+        this.project = project;
+    }
+
+    /**
+     * @param directory the directory to generate the project in
+     * @param sources the number of sources
+     * @param artifacts the number of dependencies
+     * @return the project
+     * @throws IOException if the project cannot be generated
+     */
+    static SyntheticProject create(File directory, int sources, int artifacts) throws IOException {
+        File basedir = new File(directory, "project-" + sources).getAbsoluteFile();
+        File sourceDirectory = new File(basedir, "src/main/java");
+        File complete = new File(basedir, "complete");
+        if (!complete.isFile()) {
+            FileUtils.deleteDirectory(basedir);
+            for (int i = 0; i < sources; i++) {
+                String packageName = "pkg" + i / SOURCES_PER_PACKAGE;
+                File source = new File(sourceDirectory, packageName + "/Class" + i + ".java");
+                FileUtils.forceMkdir(source.getParentFile());
+                FileUtils.fileWrite(
+                        source, "UTF-8", "package " + packageName + ";\n\npublic class Class" + i + " {\n}\n");
+            }
+            FileUtils.fileWrite(complete, "UTF-8", "");
+        }
+
+        Set<Artifact> dependencies = new LinkedHashSet<>();
+        for (int i = 0; i < artifacts; i++) {
+            File jar = new File(directory, "repository/artifact-" + i + ".jar").getAbsoluteFile();
+            if (!jar.isFile()) {
+                writeJar(jar, "dependency" + i + "/Dependency.class");
+            }
+            DefaultArtifact artifact = new DefaultArtifact(
+                    "org.example", "artifact-" + i, "1.0", "compile", "jar", null, new DefaultArtifactHandler("jar"));
+            artifact.setFile(jar);
+            dependencies.add(artifact);
+        }
+
+        MavenProject project = new MavenProject(new Model());
+        project.getBuild().setDirectory(new File(basedir, "target").getPath());
+        project.getBuild().setOutputDirectory(new File(basedir, "target/classes").getPath());
+        project.getBuild().setSourceDirectory(sourceDirectory.getPath());
+        project.addCompileSourceRoot(sourceDirectory.getPath());
+        DefaultArtifactHandler handler = new DefaultArtifactHandler("jar");
+        handler.setLanguage("java");
+        project.setArtifact(new DefaultArtifact("org.example", "project", "1.0", "compile", "jar", null, handler));
+        project.setArtifacts(dependencies);
+        project.setDependencyArtifacts(Collections.emptySet());
+        return new SyntheticProject(basedir, project);
+    }
+
+    private static void writeJar(File jar, String entry) throws IOException {
+        FileUtils.forceMkdir(jar.getParentFile());
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+            out.putNextEntry(new ZipEntry(entry));
+            out.write(new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE});
+            out.closeEntry();
+        }
+    }
+
+    /**
+     * @return the Maven project
+     */
+    MavenProject getProject() {
+        return project;
+    }
+
+    /**
+     * @return a compile mojo configured for the project, as Maven creates one for each execution
+     * @throws IllegalAccessException if the mojo cannot be configured
+     */
+    AjcCompileMojo createMojo() throws IllegalAccessException {
+        AjcCompileMojo mojo = new AjcCompileMojo();
+        mojo.setLog(new SilentLog());
+        mojo.project = project;
+        mojo.basedir = basedir;
+        ReflectionUtils.setVariableValueInObject(
+                mojo, "outputDirectory", new File(project.getBuild().getOutputDirectory()));
+        ReflectionUtils.setVariableValueInObject(
+                mojo, "generatedSourcesDirectory", new File(basedir, "target/generated-sources/aspectj-maven-plugin"));
+        return mojo;
+    }
+}
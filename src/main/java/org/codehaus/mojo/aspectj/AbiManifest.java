@@ -0,0 +1,292 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Records the ABI hash of each class of a classes directory, see {@link ClassFileSummary}, so the next build can
+ * detect which types changed in a way that affects the classes compiled against them. Changes of method bodies only
+ * do not change the ABI.
+ * <p>
+ * The manifest also records the hash of the constants and the supertypes of each class, as changes of the
+ * constants of a class and of the ABI of its supertypes affect classes which do not refer to it.
+ * <p>
+ * Like the {@link BuildManifest}, the hash of a class file is only computed again if its size or modification time
+ * differ from the previous manifest.
+ *
+ * @since 1.17
+ */
+public class AbiManifest {
+
+    private final Map<String, Entry> entries;
+
+    private AbiManifest(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Creates the manifest of the classes of a directory, reusing the hashes of the previous manifest for class files
+     * whose size and modification time are unchanged.
+     *
+     * @param classesDirectory the classes directory
+     * @param previous the manifest of the previous build, or {@code null}
+     * @return the manifest of the classes
+     * @throws IOException if a class file cannot be read
+     */
+    public static AbiManifest create(File classesDirectory, final AbiManifest previous) throws IOException {
+        final Path root = classesDirectory.getAbsoluteFile().toPath();
+        List<String> classFiles = new ArrayList<>();
+        if (Files.isDirectory(root)) {
+            try (Stream<Path> paths = Files.walk(root)) {
+                for (Path path : (Iterable<Path>) paths::iterator) {
+                    if (path.getFileName().toString().endsWith(".class") && Files.isRegularFile(path)) {
+                        classFiles.add(root.relativize(path).toString().replace(File.separatorChar, '/'));
+                    }
+                }
+            }
+        }
+
+        final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        try {
+            classFiles.parallelStream().forEach(classFile -> {
+                File file = root.resolve(classFile).toFile();
+                long size = file.length();
+                long lastModified = file.lastModified();
+                Entry previousEntry = previous == null ? null : previous.entries.get(classFile);
+                if (previousEntry != null && previousEntry.size == size && previousEntry.lastModified == lastModified) {
+                    entries.put(classFile, previousEntry);
+                } else {
+                    try {
+                        ClassFileSummary summary = ClassFileSummary.read(Files.readAllBytes(file.toPath()));
+                        entries.put(
+                                classFile,
+                                new Entry(
+                                        size,
+                                        lastModified,
+                                        summary.getAbiHash(),
+                                        summary.getConstantsHash(),
+                                        summary.isAspect(),
+                                        summary.getSupertypes()));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(new IOException("Cannot read class file " + file, e));
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return new AbiManifest(new TreeMap<>(entries));
+    }
+
+    /**
+     * Reads a manifest written by {@link #write(File)}.
+     *
+     * @param file the manifest file
+     * @return the manifest, or {@code null} if the file does not exist
+     * @throws IOException if the file cannot be read
+     */
+    public static AbiManifest read(File file) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        Map<String, Entry> entries = new TreeMap<>();
+        try (BufferedReader reader =
+                new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // <hash> <constants hash> <A for aspects, C otherwise> <supertypes> <size> <lastModified> <class file>
+                String[] fields = line.split(" ", 7);
+                if (fields.length == 7) {
+                    entries.put(
+                            fields[6],
+                            new Entry(
+                                    Long.parseLong(fields[4]),
+                                    Long.parseLong(fields[5]),
+                                    fields[0],
+                                    fields[1],
+                                    "A".equals(fields[2]),
+                                    "-".equals(fields[3])
+                                            ? Collections.<String>emptyList()
+                                            : Arrays.asList(fields[3].split(","))));
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupt ABI manifest " + file, e);
+        }
+        return new AbiManifest(entries);
+    }
+
+    /**
+     * Writes this manifest. The class files are recorded relative to their classes directory.
+     *
+     * @param file the manifest file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(File file) throws IOException {
+        FileUtils.forceMkdir(file.getParentFile());
+        try (BufferedWriter writer =
+                new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                Entry value = entry.getValue();
+                writer.write(value.abiHash + " " + value.constantsHash + " " + (value.aspect ? "A" : "C") + " "
+                        + (value.supertypes.isEmpty() ? "-" : String.join(",", value.supertypes)) + " " + value.size
+                        + " " + value.lastModified + " " + entry.getKey());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Determines the types whose ABI differs between this and the given manifest, including the types added or
+     * removed.
+     *
+     * @param current the manifest of the current build
+     * @return the internal names of the changed types, e.g. {@code com/example/Foo}
+     */
+    public Set<String> getChangedTypes(AbiManifest current) {
+        Set<String> changed = new LinkedHashSet<>();
+        for (Map.Entry<String, Entry> entry : current.entries.entrySet()) {
+            Entry previousEntry = entries.get(entry.getKey());
+            if (previousEntry == null || !previousEntry.abiHash.equals(entry.getValue().abiHash)) {
+                changed.add(getTypeName(entry.getKey()));
+            }
+        }
+        for (String classFile : entries.keySet()) {
+            if (!current.entries.containsKey(classFile)) {
+                changed.add(getTypeName(classFile));
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Determines whether the value of a constant differs between this and the given manifest. As compilers inline
+     * constants, the classes using a changed constant cannot be told by the types they refer to.
+     *
+     * @param current the manifest of the current build
+     * @return {@code true} if a constant was changed, added to or removed from a type of this manifest
+     */
+    public boolean hasChangedConstants(AbiManifest current) {
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Entry currentEntry = current.entries.get(entry.getKey());
+            String currentConstants = currentEntry == null ? "-" : currentEntry.constantsHash;
+            if (!entry.getValue().constantsHash.equals(currentConstants)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Closes the given types over the type hierarchy of this manifest, as a change of the ABI of a type changes the
+     * members its subtypes inherit.
+     *
+     * @param types the internal names of types
+     * @return the given types and the types of this manifest extending or implementing one of them, directly or not
+     */
+    public Set<String> addSubtypes(Set<String> types) {
+        Set<String> closure = new LinkedHashSet<>(types);
+        boolean added = true;
+        while (added) {
+            added = false;
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                String typeName = getTypeName(entry.getKey());
+                if (!closure.contains(typeName) && !Collections.disjoint(entry.getValue().supertypes, closure)) {
+                    closure.add(typeName);
+                    added = true;
+                }
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * @param typeName the internal name of a type
+     * @return {@code true} if the type is an aspect of this manifest
+     */
+    public boolean isAspect(String typeName) {
+        Entry entry = entries.get(typeName + ".class");
+        return entry != null && entry.aspect;
+    }
+
+    private static String getTypeName(String classFile) {
+        return classFile.substring(0, classFile.length() - ".class".length());
+    }
+
+    /**
+     * Size, modification time, ABI and constants hashes and supertypes of a single class file.
+     */
+    private static final class Entry {
+        private final long size;
+
+        private final long lastModified;
+
+        private final String abiHash;
+
+        private final String constantsHash;
+
+        private final boolean aspect;
+
+        private final List<String> supertypes;
+
+        private Entry(
+                long size,
+                long lastModified,
+                String abiHash,
+                String constantsHash,
+                boolean aspect,
+                List<String> supertypes) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.abiHash = abiHash;
+            this.constantsHash = constantsHash;
+            this.aspect = aspect;
+            this.supertypes = supertypes;
+        }
+    }
+}
@@ -26,12 +26,26 @@ package org.codehaus.mojo.aspectj;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.maven.artifact.Artifact;
@@ -385,15 +399,33 @@ public abstract class AbstractAjcCompiler extends AbstractAjcMojo {
      * -encoding
      * UTF-8
      * -classpath
-     * /my/library/lib.jar:/somewhere/aspectjrt.jar:/my/project/target/classes
+     * /my/library/lib.jar:${localRepository}/org/aspectj/aspectjrt/1.9.7/aspectjrt-1.9.7.jar:${basedir}/target/classes
      * -d
-     * /my/project/target/classes
-     * /my/project/src/main/java/org/acme/ValidationAspect.java
+     * ${basedir}/target/classes
+     * ${basedir}/src/main/java/org/acme/ValidationAspect.java
      * </code></pre>
+     * Paths below the local repository, the directory the build was started in ({@code ${rootdir}}) and the project
+     * directory are stored relative to these, so the file stays valid if the project is built in another directory,
+     * e.g. on another CI agent or restored from a build cache.
+     * Next to it, a file with the same name and the suffix {@code .manifest} records size and checksum of all sources
+     * and classes to weave, so changes are detected by content rather than by modification time.
      */
     @Parameter(defaultValue = "builddef.lst")
     protected String argumentFileName = "builddef.lst";
 
+    /**
+     * The local repository, paths below it are stored relative to it in the {@code argumentFileName} file.
+     */
+    @Parameter(defaultValue = "${settings.localRepository}", readonly = true)
+    private File localRepository;
+
+    /**
+     * The directory the build was started in, paths below it are stored relative to it in the
+     * {@code argumentFileName} file.
+     */
+    @Parameter(defaultValue = "${session.executionRootDirectory}", readonly = true)
+    private File executionRootDirectory;
+
     /**
      * Forces re-compilation, regardless of whether the compiler arguments or the sources have changed.
      *
@@ -401,6 +433,206 @@ public abstract class AbstractAjcCompiler extends AbstractAjcMojo {
     @Parameter(defaultValue = "false")
     protected boolean forceAjcCompile;
 
+    /**
+     * Only recompiles the sources changed since the previous build, together with the sources referring to them by
+     * type name, and weaves them with the aspects already present in the output directory.
+     * A full build is still done if the compiler arguments changed, a source was removed, an aspect source changed
+     * or the classes to weave changed.
+     * <p>
+     * The {@code test-compile} goal also recompiles the test sources whose classes refer to a main type whose ABI,
+     * i.e. its signatures rather than its method bodies, changed, and all test sources if a main aspect changed.
+     * <p>
+     * <b>Caveat:</b> dependencies between sources are detected by matching the names of the changed top level types
+     * in the source text, so types declared in a source file not named after them are not tracked. Use
+     * {@code forceAjcCompile} or a clean build after such changes.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "false", property = "aspectj.incremental")
+    protected boolean incremental;
+
+    /**
+     * Compiles the sources into a staging directory next to the output directory first, and weaves the staged classes
+     * into the output directory in a second step. If only aspect sources have changed since the previous build, only
+     * those aspects are compiled again and the staged classes are rewoven, instead of compiling all sources. Takes
+     * precedence over {@code incremental}.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "false", property = "aspectj.reweaveOnAspectChange")
+    protected boolean reweaveOnAspectChange;
+
+    /**
+     * Leaves the dependency jars which neither contain class files nor register services, e.g. jars with web
+     * resources only, out of the classpath of the compiler. Reads the central directory of each dependency jar once
+     * per build to find them.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "false", property = "aspectj.skipJarsWithoutClasses")
+    protected boolean skipJarsWithoutClasses;
+
+    /**
+     * Profiles the AspectJ compiler: records the time spent parsing, compiling and weaving, and writing the output, the
+     * time spent per woven type, the join point shadows advised per aspect and type, and the time and number of calls
+     * spent matching each pointcut. The profile is written as JSON document to the {@code profileFile}, and
+     * summarized in the log.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "false", property = "aspectj.profile")
+    protected boolean profile;
+
+    /**
+     * Location of a shared cache of the compiler output: either a directory, e.g. on a network mount shared by the
+     * developers and CI agents, or the {@code http} or {@code https} URL of a server accepting {@code GET} and
+     * {@code PUT} requests. The output of a full build is stored under a key computed from the content of all
+     * compiler inputs, the compiler arguments and the AspectJ version; a later build with the same key restores the
+     * output instead of running the compiler. Paths below the roots of the project, the reactor and the local
+     * repository do not contribute to the key, so builds in different directories share their outputs.
+     * <p>
+     * <b>Caveat:</b> the messages of the compiler, e.g. its warnings, are not repeated when the output is restored.
+     *
+     * @since 1.17
+     */
+    @Parameter(property = "aspectj.buildCache")
+    protected String buildCache;
+
+    /**
+     * Only retains the error messages of the compiler until the end of the build; all other messages are emitted as
+     * they arrive and only counted. Bounds the memory used for messages, e.g. with {@code showWeaveInfo} on large
+     * modules.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "false", property = "aspectj.streamMessages")
+    protected boolean streamMessages;
+
+    /**
+     * File to write all compiler messages to, as they arrive. Informational messages, e.g. the weave info, are then
+     * written to this file only instead of the Maven log; warnings and errors are still logged.
+     *
+     * @since 1.17
+     */
+    @Parameter(property = "aspectj.messageFile")
+    protected File messageFile;
+
+    /**
+     * Writes the weave info of the compiler to the {@code weaveInfoFile}, as table of the advised join points with
+     * their aspect, advice kind, woven type and source line, instead of logging it. Implies {@code showWeaveInfo}.
+     * <p>
+     * The report is only written by builds weaving all classes, i.e. full builds and the reweaving of
+     * {@code reweaveOnAspectChange}. Builds which only weave the recompiled classes, i.e. incremental builds, and
+     * builds restoring their output from the {@code buildCache} delete the report, so it never describes outdated
+     * output. A build skipped as up to date keeps it.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "false", property = "aspectj.weaveInfoReport")
+    protected boolean weaveInfoReport;
+
+    /**
+     * Keeps the modification time of the files in the output directory which the compiler rewrote with the same
+     * content, e.g. classes of the {@code weaveDirectories} no advice applies to, so later build steps do not consider
+     * them changed; reports the number of classes actually modified. The checksums of the output files are recorded
+     * next to the arguments file, so only files changed since the previous build are read again.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "false", property = "aspectj.keepUnchangedOutput")
+    protected boolean keepUnchangedOutput;
+
+    /**
+     * Weaves the jars and directories of the inpath which do not refer to each other by concurrent compilers, each
+     * writing to a directory of its own, which are merged into the output directory afterwards. The sources are
+     * compiled first, and their aspects are applied to the inpath from the output directory. At most
+     * {@code maxConcurrentCompilers} compilers run at a time. The inpath is woven in one run if it contains aspects or
+     * if {@code outxml} or {@code outxmlfile} are configured.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "false", property = "aspectj.parallelWeaving")
+    protected boolean parallelWeaving;
+
+    /**
+     * Runs the AspectJ compiler in a class loader of its own, isolating its static state from other executions.
+     * By default the AspectJ compiler runs one execution at a time in a Maven JVM, so the modules of a parallel build
+     * ({@code mvn -T}) are woven one after the other. Isolated compilers run concurrently instead, at the cost of
+     * loading the compiler for every execution.
+     *
+     * @since 1.17
+     * @see #maxConcurrentCompilers
+     */
+    @Parameter(defaultValue = "false", property = "aspectj.isolatedCompiler")
+    protected boolean isolatedCompiler;
+
+    /**
+     * Maximum number of isolated AspectJ compilers running at the same time in a Maven JVM, to bound the heap used by
+     * parallel builds. A value of 0 or less means the number of available processors. As the limit is shared by all
+     * executions, the value of the first execution using an isolated compiler applies.
+     *
+     * @since 1.17
+     * @see #isolatedCompiler
+     */
+    @Parameter(defaultValue = "0", property = "aspectj.maxConcurrentCompilers")
+    protected int maxConcurrentCompilers;
+
+    /**
+     * Keeps isolated AspectJ compilers loaded after use, so the following executions, e.g. of the other modules of a
+     * reactor build, reuse an already loaded and warmed up compiler. When Maven runs as a daemon, the compilers are
+     * reused by consecutive builds as well. Implies {@code isolatedCompiler}.
+     *
+     * @since 1.17
+     * @see #compilerIdleTimeout
+     */
+    @Parameter(defaultValue = "false", property = "aspectj.reuseCompilers")
+    protected boolean reuseCompilers;
+
+    /**
+     * Number of seconds after which an unused compiler kept by {@code reuseCompilers} is released. With {@code 0},
+     * compilers are released right after use.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "60", property = "aspectj.compilerIdleTimeout")
+    protected int compilerIdleTimeout = 60;
+
+    /**
+     * Runs the AspectJ compiler in a separate JVM, so a memory hungry weave does not require a large heap for the whole
+     * Maven build. The compiler reads its arguments from an argument file, and its messages are logged as they are
+     * reported. Takes precedence over {@code isolatedCompiler}.
+     *
+     * @since 1.17
+     * @see #maxmem
+     * @see #forkJvmArgs
+     */
+    @Parameter(defaultValue = "false", property = "aspectj.fork")
+    protected boolean fork;
+
+    /**
+     * Maximum heap size of the forked compiler JVM, e.g. {@code 2g}, passed as {@code -Xmx} option. Only used if
+     * {@code fork} is set.
+     *
+     * @since 1.17
+     */
+    @Parameter(property = "aspectj.maxmem")
+    protected String maxmem;
+
+    /**
+     * Additional options of the forked compiler JVM, e.g.
+     * <pre>{@code
+     * <forkJvmArgs>
+     *   <forkJvmArg>-XX:+UseParallelGC</forkJvmArg>
+     *   <forkJvmArg>-XX:TieredStopAtLevel=1</forkJvmArg>
+     * </forkJvmArgs>
+     * }</pre>
+     * Only used if {@code fork} is set.
+     *
+     * @since 1.17
+     */
+    @Parameter
+    protected List<String> forkJvmArgs;
+
     /**
      * Sets additional compiler arguments, e.g.
      * <pre>{@code
@@ -433,6 +665,16 @@ public abstract class AbstractAjcCompiler extends AbstractAjcMojo {
      */
     protected Set<String> resolvedIncludes;
 
+    /**
+     * Holds the size and checksum of the sources and classes to weave of this build.
+     */
+    private BuildManifest buildManifest;
+
+    /**
+     * Stage the classes to weave of the jars and directories whose classes to weave are restricted.
+     */
+    private final List<InpathFilter> inpathFilters = new ArrayList<>();
+
     /**
      * Abstract method used by child classes to specify the correct output directory for compiled classes.
      *
@@ -470,11 +712,35 @@ public abstract class AbstractAjcCompiler extends AbstractAjcMojo {
      */
     protected abstract String getAdditionalAspectPaths();
 
+    /**
+     * Abstract method used by child classes to specify the file the {@code profile} is written to.
+     *
+     * @return the profile file
+     */
+    protected abstract File getProfileFile();
+
+    /**
+     * Abstract method used by child classes to specify the file the {@code weaveInfoReport} is written to.
+     *
+     * @return the weave info file
+     */
+    protected abstract File getWeaveInfoFile();
+
     /**
      * Lock for the call to the AspectJ compiler to make it thread-safe.
      */
     private static final Object BIG_ASPECTJ_LOCK = new Object();
 
+    /**
+     * Bounds the number of isolated AspectJ compilers running at the same time.
+     */
+    private static Semaphore isolatedCompilerPermits;
+
+    /**
+     * Numbers the argument files of forked compilers, which may run concurrently.
+     */
+    private static final AtomicInteger FORKED_COMPILER_RUNS = new AtomicInteger();
+
     /**
      * Do the AspectJ compiling.
      *
@@ -542,50 +808,729 @@ public abstract class AbstractAjcCompiler extends AbstractAjcMojo {
             return;
         }
 
+        List<List<String>> compilerRuns;
+        if (reweaveOnAspectChange) {
+            compilerRuns = getReweaveArguments(getOutputDirectory());
+        } else {
+            List<String> arguments = ajcOptions;
+            if (incremental && !forceAjcCompile) {
+                List<String> incrementalArguments = getIncrementalArguments(getOutputDirectory());
+                if (incrementalArguments != null) {
+                    arguments = incrementalArguments;
+                }
+            }
+            compilerRuns = Collections.singletonList(arguments);
+        }
+
         if (getLog().isDebugEnabled()) {
-            StringBuilder command = new StringBuilder("Running : ajc");
+            for (List<String> arguments : compilerRuns) {
+                StringBuilder command = new StringBuilder("Running : ajc");
 
-            for (String arg : ajcOptions) {
-                command.append(' ').append(arg);
+                for (String arg : arguments) {
+                    command.append(' ').append(arg);
+                }
+                getLog().debug(command);
             }
-            getLog().debug(command);
         }
+        getLog().debug("Compiling and weaving " + resolvedIncludes.size() + " sources to " + getOutputDirectory());
+        writeBuildFiles();
+
+        BuildOutputCache outputCache = null;
+        String outputCacheKey = null;
+        Map<String, List<Long>> outputSnapshot = null;
+        if (buildCache != null && !buildCache.isEmpty()) {
+            try {
+                outputCache = BuildOutputCache.create(buildCache);
+                outputCacheKey = BuildOutputCache.computeKey(
+                        getBuildCacheArguments(),
+                        getRelocatablePaths(),
+                        Arrays.asList(
+                                getOutputDirectory().getAbsoluteFile(),
+                                getStagingDirectory(getOutputDirectory()).getAbsoluteFile(),
+                                getInpathStagingDirectory()));
+                if (outputCache.restore(outputCacheKey, getOutputDirectory())) {
+                    getLog().info("Restored AspectJ compiler output " + outputCacheKey + " from " + buildCache);
+                    deleteWeaveInfoReport("the output was restored from the build cache");
+                    outputUpdated();
+                    return;
+                }
+                getLog().debug("AspectJ compiler output " + outputCacheKey + " not found in " + buildCache);
+                outputSnapshot = BuildOutputCache.snapshot(getOutputDirectory());
+            } catch (IOException e) {
+                getLog().warn("Could not read from the AspectJ build cache " + buildCache, e);
+                outputCache = null;
+            }
+        }
+
+        BuildManifest outputBefore = null;
+        if (keepUnchangedOutput) {
+            try {
+                outputBefore = BuildManifest.create(
+                        getOutputFiles(getOutputDirectory()),
+                        BuildManifest.read(getOutputManifestFile(getOutputDirectory()), getRelocatablePaths()));
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not read the output directory " + getOutputDirectory(), e);
+            }
+        }
+
+        for (InpathFilter inpathFilter : inpathFilters) {
+            try {
+                int classes = inpathFilter.stage(getOutputDirectory());
+                getLog().debug("Weaving " + classes + " classes of " + inpathFilter);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not stage the classes to weave of " + inpathFilter, e);
+            }
+        }
+
+        // Only the weave info of a run weaving all classes is complete
+        boolean writeWeaveInfoReport = weaveInfoReport
+                && (reweaveOnAspectChange || compilerRuns.size() == 1 && compilerRuns.get(0) == ajcOptions);
+        if (!writeWeaveInfoReport) {
+            deleteWeaveInfoReport("only the recompiled classes are woven");
+        }
+
+        MavenMessageHandler mavenMessageHandler = profile
+                ? new ProfilingMessageHandler(
+                        getLog(),
+                        ajcOptions.contains("-verbose"),
+                        ajcOptions.contains("-showWeaveInfo") || writeWeaveInfoReport)
+                : new MavenMessageHandler(getLog());
+        mavenMessageHandler.setStreaming(streamMessages);
+        if (messageFile != null) {
+            try {
+                mavenMessageHandler.setMessageFile(messageFile);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not create the message file " + messageFile, e);
+            }
+        }
+        if (writeWeaveInfoReport) {
+            try {
+                mavenMessageHandler.setWeaveInfoFile(getWeaveInfoFile());
+            } catch (IOException e) {
+                try {
+                    mavenMessageHandler.close();
+                } catch (IOException ignored) {
+                    // The weave info file is reported
+                }
+                throw new MojoExecutionException("Could not create the weave info file " + getWeaveInfoFile(), e);
+            }
+        }
+        IMessage[] errors = new IMessage[0];
         try {
-            getLog().debug("Compiling and weaving " + resolvedIncludes.size() + " sources to " + getOutputDirectory());
-            AjcHelper.writeBuildConfigToFile(ajcOptions, argumentFileName, getOutputDirectory());
-            getLog().debug("Arguments file written : "
-                    + new File(getOutputDirectory(), argumentFileName).getAbsolutePath());
-        } catch (IOException e) {
-            throw new MojoExecutionException("Could not write arguments file to the target area", e);
+            for (List<String> arguments : compilerRuns) {
+                boolean fullBuild = arguments == ajcOptions;
+                if (profile) {
+                    arguments = new ArrayList<>(arguments);
+                    for (String argument : ProfilingMessageHandler.PROFILING_ARGUMENTS) {
+                        if (!arguments.contains(argument)) {
+                            arguments.add(argument);
+                        }
+                    }
+                }
+                if (writeWeaveInfoReport && !arguments.contains("-showWeaveInfo")) {
+                    arguments = new ArrayList<>(arguments);
+                    arguments.add("-showWeaveInfo");
+                }
+                if (parallelWeaving && fullBuild) {
+                    runPartitionedCompiler(arguments, mavenMessageHandler);
+                } else {
+                    runCompiler(arguments, mavenMessageHandler);
+                }
+                errors = mavenMessageHandler.getMessages(IMessage.ERROR, true);
+                if (errors.length > 0) {
+                    break;
+                }
+            }
+        } finally {
+            try {
+                mavenMessageHandler.close();
+            } catch (IOException e) {
+                getLog().warn("Could not write the message files", e);
+            }
         }
 
-        final Main ajcMain = new Main();
-        MavenMessageHandler mavenMessageHandler = new MavenMessageHandler(getLog());
-        ajcMain.setHolder(mavenMessageHandler);
+        if (profile) {
+            ProfilingMessageHandler profilingMessageHandler = (ProfilingMessageHandler) mavenMessageHandler;
+            profilingMessageHandler.finish();
+            profilingMessageHandler.logSummary();
+            try {
+                profilingMessageHandler.writeReport(getProfileFile());
+                getLog().info("AspectJ profile written to " + getProfileFile());
+            } catch (IOException e) {
+                getLog().warn("Could not write the AspectJ profile to " + getProfileFile(), e);
+            }
+        }
 
-        synchronized (BIG_ASPECTJ_LOCK) {
-            ajcMain.runMain(ajcOptions.toArray(new String[0]), false);
+        // Only the output of a full build is complete, so only it is cached
+        if (outputCache != null
+                && outputSnapshot != null
+                && errors.length == 0
+                && compilerRuns.size() == 1
+                && compilerRuns.get(0) == ajcOptions) {
+            try {
+                outputCache.store(
+                        outputCacheKey,
+                        getOutputDirectory(),
+                        BuildOutputCache.getChangedFiles(getOutputDirectory(), outputSnapshot));
+                getLog().debug("Stored AspectJ compiler output " + outputCacheKey + " in " + buildCache);
+            } catch (IOException e) {
+                getLog().warn("Could not store in the AspectJ build cache " + buildCache, e);
+            }
+        }
+
+        if (outputBefore != null && errors.length == 0) {
+            try {
+                keepUnchangedOutput(outputBefore);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not compare the output to the previous output", e);
+            }
+        }
+
+        if (errors.length == 0) {
+            outputUpdated();
         }
 
-        IMessage[] errors = mavenMessageHandler.getMessages(IMessage.ERROR, true);
         if (!proceedOnError && errors.length > 0) {
+            if (incremental || reweaveOnAspectChange) {
+                // The next incremental build must not consider the failed sources as up to date
+                FileUtils.fileDelete(new File(getOutputDirectory(), argumentFileName).getAbsolutePath());
+                FileUtils.fileDelete(getBuildManifestFile(getOutputDirectory()).getAbsolutePath());
+            }
             throw CompilationFailedException.create(errors);
         }
     }
 
+    /**
+     * Determines the arguments the key of the build cache is computed from: the compiler arguments, and the sources and
+     * patterns of the {@link InpathFilter}s, as the compiler arguments only refer to the staging directories of the
+     * filtered classes, which are outputs of the previous build rather than inputs.
+     *
+     * @return the arguments of the build cache key
+     */
+    private List<String> getBuildCacheArguments() {
+        List<String> arguments = new ArrayList<>(ajcOptions);
+        for (InpathFilter inpathFilter : inpathFilters) {
+            arguments.add("-inpathFilter");
+            arguments.add(inpathFilter.getSource().getAbsolutePath());
+            arguments.add(inpathFilter.getPatterns());
+        }
+        return arguments;
+    }
+
+    private void deleteWeaveInfoReport(String reason) {
+        if (weaveInfoReport && getWeaveInfoFile().delete()) {
+            getLog().info("Deleted the weave info report " + getWeaveInfoFile() + " as " + reason);
+        }
+    }
+
+    /**
+     * Called after the compiler successfully updated the output directory, or the output was restored from the build
+     * cache.
+     *
+     * @throws MojoExecutionException if processing the output fails
+     * @since 1.17
+     */
+    protected void outputUpdated() throws MojoExecutionException {}
+
+    /**
+     * Runs the AspectJ compiler, either in a separate JVM, shared by all executions in the JVM, or isolated and
+     * possibly reused from the {@link IsolatedAjcCompilerPool}.
+     *
+     * @param arguments the ajc arguments
+     * @param messageHandler receives the messages of the compiler
+     * @throws MojoExecutionException if the isolated compiler cannot be loaded
+     */
+    protected void runCompiler(List<String> arguments, MavenMessageHandler messageHandler)
+            throws MojoExecutionException {
+        if (fork) {
+            runForkedCompiler(arguments, messageHandler);
+            return;
+        }
+        if (!isolatedCompiler && !reuseCompilers) {
+            final Main ajcMain = new Main();
+            ajcMain.setHolder(messageHandler);
+
+            synchronized (BIG_ASPECTJ_LOCK) {
+                ajcMain.runMain(arguments.toArray(new String[0]), false);
+            }
+            return;
+        }
+
+        runIsolatedCompiler(arguments, messageHandler);
+    }
+
+    /**
+     * Runs an isolated AspectJ compiler, possibly reused from the {@link IsolatedAjcCompilerPool}, as soon as less than
+     * {@code maxConcurrentCompilers} isolated compilers are running.
+     *
+     * @param arguments the ajc arguments
+     * @param messageHandler receives the messages of the compiler
+     * @throws MojoExecutionException if the isolated compiler cannot be loaded
+     */
+    private void runIsolatedCompiler(List<String> arguments, MavenMessageHandler messageHandler)
+            throws MojoExecutionException {
+        Semaphore permits = getIsolatedCompilerPermits(maxConcurrentCompilers);
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while waiting for an AspectJ compiler", e);
+        }
+        try {
+            IsolatedAjcCompiler compiler =
+                    reuseCompilers ? IsolatedAjcCompilerPool.getInstance().borrow() : new IsolatedAjcCompiler();
+            getLog().debug("Running " + (reuseCompilers ? "a pooled" : "an isolated") + " AspectJ compiler");
+            boolean completed = false;
+            try {
+                compiler.run(arguments.toArray(new String[0]), messageHandler);
+                completed = true;
+            } finally {
+                if (reuseCompilers && completed) {
+                    IsolatedAjcCompilerPool.getInstance()
+                            .release(compiler, TimeUnit.SECONDS.toMillis(compilerIdleTimeout));
+                } else {
+                    compiler.close();
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not load or release an isolated AspectJ compiler", e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Runs the AspectJ compiler in a separate JVM. The arguments are passed via a temporary argument file next to the
+     * {@code argumentFileName} file, which holds relative paths.
+     *
+     * @param arguments the ajc arguments
+     * @param messageHandler receives the messages of the compiler
+     * @throws MojoExecutionException if the JVM cannot be started
+     */
+    private void runForkedCompiler(List<String> arguments, MavenMessageHandler messageHandler)
+            throws MojoExecutionException {
+        List<String> jvmArgs = new ArrayList<>();
+        if (StringUtils.isNotEmpty(maxmem)) {
+            jvmArgs.add("-Xmx" + maxmem);
+        }
+        if (forkJvmArgs != null) {
+            jvmArgs.addAll(forkJvmArgs);
+        }
+        ForkedAjcCompiler compiler =
+                new ForkedAjcCompiler(ForkedAjcCompiler.getDefaultJavaExecutable(), jvmArgs, basedir);
+
+        File argumentFile = new File(
+                getOutputDirectory(), argumentFileName + "." + FORKED_COMPILER_RUNS.incrementAndGet() + ".fork");
+        try {
+            AjcHelper.writeBuildConfigToFile(arguments, argumentFile.getName(), getOutputDirectory());
+            getLog().debug("Forking AspectJ compiler with JVM options " + jvmArgs);
+            compiler.run(argumentFile, messageHandler);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not run the forked AspectJ compiler", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while waiting for the forked AspectJ compiler", e);
+        } finally {
+            FileUtils.fileDelete(argumentFile.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Compiles the sources, then weaves the independent groups of inpath entries by concurrent compilers, see
+     * {@code parallelWeaving}.
+     *
+     * @param arguments the ajc arguments of a full build
+     * @param messageHandler receives the messages of the compilers
+     * @throws MojoExecutionException if the inpath cannot be read, or a compiler cannot be run
+     */
+    private void runPartitionedCompiler(List<String> arguments, MavenMessageHandler messageHandler)
+            throws MojoExecutionException {
+        int inpathIndex = arguments.indexOf("-inpath");
+        List<List<String>> groups = null;
+        if (inpathIndex >= 0
+                && inpathIndex + 1 < arguments.size()
+                && !arguments.contains("-outxml")
+                && !arguments.contains("-outxmlfile")) {
+            try {
+                groups = InpathPartitioner.partition(
+                        Arrays.asList(arguments.get(inpathIndex + 1).split(Pattern.quote(File.pathSeparator))));
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not read the inpath", e);
+            }
+        }
+        if (groups == null || groups.size() < 2) {
+            getLog().debug("Inpath cannot be partitioned, weaving it in one run");
+            runCompiler(arguments, messageHandler);
+            return;
+        }
+
+        File outDir = getOutputDirectory().getAbsoluteFile();
+        String inpath = arguments.get(inpathIndex + 1);
+        List<String> compileArguments = new ArrayList<>();
+        List<String> weaveArguments = new ArrayList<>();
+        boolean hasSources = false;
+        for (int i = 0; i < arguments.size(); i++) {
+            String argument = arguments.get(i);
+            if (i == inpathIndex) {
+                i++;
+                continue;
+            }
+            compileArguments.add(argument);
+            if (resolvedIncludes.contains(argument)) {
+                hasSources = true;
+            } else {
+                weaveArguments.add(argument);
+            }
+        }
+        addToPathArgument(compileArguments, "-classpath", inpath);
+        addToPathArgument(weaveArguments, "-classpath", inpath);
+        if (hasSources) {
+            runCompiler(compileArguments, messageHandler);
+            if (messageHandler.hasAnyMessage(IMessage.ERROR, true)) {
+                return;
+            }
+            addToPathArgument(weaveArguments, "-classpath", outDir.getAbsolutePath());
+            addToPathArgument(weaveArguments, "-aspectpath", outDir.getAbsolutePath());
+        }
+
+        File partitionsDirectory = new File(outDir.getParentFile(), outDir.getName() + "-partitions");
+        getLog().info("Weaving " + groups.size() + " independent groups of the inpath concurrently");
+        ForkJoinPool pool = new ForkJoinPool(
+                maxConcurrentCompilers > 0
+                        ? maxConcurrentCompilers
+                        : Runtime.getRuntime().availableProcessors());
+        try {
+            FileUtils.deleteDirectory(partitionsDirectory);
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < groups.size(); i++) {
+                final List<String> groupArguments = new ArrayList<>(weaveArguments);
+                groupArguments.set(
+                        groupArguments.indexOf("-d") + 1, new File(partitionsDirectory, String.valueOf(i)).getPath());
+                groupArguments.add("-inpath");
+                groupArguments.add(StringUtils.join(groups.get(i).iterator(), File.pathSeparator));
+                tasks.add(pool.submit(() -> {
+                    runConcurrentCompiler(groupArguments, messageHandler);
+                    return null;
+                }));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.get();
+            }
+            if (!messageHandler.hasAnyMessage(IMessage.ERROR, true)) {
+                for (int i = 0; i < groups.size(); i++) {
+                    File partition = new File(partitionsDirectory, String.valueOf(i));
+                    if (partition.isDirectory()) {
+                        FileUtils.copyDirectoryStructure(partition, outDir);
+                    }
+                }
+            }
+            FileUtils.deleteDirectory(partitionsDirectory);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not merge the woven groups of the inpath into " + outDir, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while weaving the inpath", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MojoExecutionException) {
+                throw (MojoExecutionException) e.getCause();
+            }
+            throw new MojoExecutionException("Could not weave the inpath", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs an AspectJ compiler which may run concurrently to other compilers of this execution, i.e. a forked or an
+     * isolated compiler.
+     */
+    private void runConcurrentCompiler(List<String> arguments, MavenMessageHandler messageHandler)
+            throws MojoExecutionException {
+        if (fork) {
+            runForkedCompiler(arguments, messageHandler);
+        } else {
+            runIsolatedCompiler(arguments, messageHandler);
+        }
+    }
+
+    private static synchronized Semaphore getIsolatedCompilerPermits(int maxConcurrentCompilers) {
+        if (isolatedCompilerPermits == null) {
+            int permits = maxConcurrentCompilers > 0
+                    ? maxConcurrentCompilers
+                    : Runtime.getRuntime().availableProcessors();
+            isolatedCompilerPermits = new Semaphore(permits, true);
+        }
+        return isolatedCompilerPermits;
+    }
+
+    /**
+     * Assembles the ajc arguments for an incremental build, which only recompiles the sources changed since the
+     * previous build and the sources referring to them. The classes in the output directory are added to the
+     * aspectpath, so the recompiled sources are woven with the aspects compiled by the previous build.
+     *
+     * @param outDir the output directory of the previous build
+     * @return the incremental arguments, or {@code null} if a full build is needed
+     * @throws MojoExecutionException if the previous build state or the sources cannot be read
+     */
+    protected List<String> getIncrementalArguments(File outDir) throws MojoExecutionException {
+        if (outxml || outxmlfile != null) {
+            getLog().debug("Incremental build not possible, the load-time weaving configuration lists all aspects");
+            return null;
+        }
+        Set<String> staleSources = getStaleSources(outDir);
+        if (staleSources == null) {
+            return null;
+        }
+
+        try {
+            for (String source : staleSources) {
+                if (AjcHelper.isAspectSource(new File(source), encoding)) {
+                    getLog().debug("Incremental build not possible, aspect source [" + source + "] is affected");
+                    return null;
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not read sources to determine the incremental build", e);
+        }
+        if (staleSources.size() * 2 > resolvedIncludes.size()) {
+            getLog().debug("Incremental build not worthwhile, " + staleSources.size() + " of " + resolvedIncludes.size()
+                    + " sources are affected");
+            return null;
+        }
+
+        getLog().info("Incremental build: compiling and weaving " + staleSources.size() + " of "
+                + resolvedIncludes.size() + " sources");
+        List<String> arguments = new ArrayList<>();
+        for (String argument : ajcOptions) {
+            if (!resolvedIncludes.contains(argument)) {
+                arguments.add(argument);
+            }
+        }
+        addToPathArgument(arguments, "-aspectpath", outDir.getAbsolutePath());
+        arguments.addAll(staleSources);
+        return arguments;
+    }
+
+    /**
+     * Determines the sources changed or added since the previous build, and the sources referring to them.
+     *
+     * @param outDir the output directory of the previous build
+     * @return the stale sources, or {@code null} if nothing has changed or all sources have to be compiled, e.g.
+     *         because the compiler arguments have changed
+     * @throws MojoExecutionException if the previous build or the sources cannot be read
+     */
+    private Set<String> getStaleSources(File outDir) throws MojoExecutionException {
+        if (hasNoPreviousBuild(outDir)) {
+            return null;
+        }
+
+        List<String> previousArguments = readPreviousArguments(outDir);
+        List<String> previousOptions = new ArrayList<>();
+        Set<String> previousSources = new HashSet<>();
+        for (String argument : previousArguments) {
+            if (AjcHelper.isSourceFileArgument(argument)) {
+                previousSources.add(argument);
+            } else {
+                previousOptions.add(argument);
+            }
+        }
+        List<String> currentOptions = new ArrayList<>();
+        for (String argument : ajcOptions) {
+            if (!AjcHelper.isSourceFileArgument(argument)) {
+                currentOptions.add(argument);
+            }
+        }
+        if (!currentOptions.equals(previousOptions)) {
+            getLog().debug("Incremental build not possible, the compiler arguments have changed");
+            return null;
+        }
+        if (!resolvedIncludes.containsAll(previousSources)) {
+            getLog().debug("Incremental build not possible, sources have been removed");
+            return null;
+        }
+        if (hasNonWeavedClassesChanged(outDir)) {
+            getLog().debug("Incremental build not possible, the classes to weave have changed");
+            return null;
+        }
+
+        Set<String> changedInputs = getChangedInputs(outDir);
+        long lastBuild = new File(outDir, argumentFileName).lastModified();
+        Set<String> changedSources = new LinkedHashSet<>();
+        for (String source : resolvedIncludes) {
+            boolean changed = changedInputs != null
+                    ? changedInputs.contains(source)
+                    : new File(source).lastModified() >= lastBuild;
+            if (changed || !previousSources.contains(source)) {
+                changedSources.add(source);
+            }
+        }
+        Set<String> affectedSources = getSourcesAffectedByClasspath(outDir);
+        if (affectedSources == null) {
+            getLog().debug("Incremental build not possible, the classpath has changed");
+            return null;
+        }
+        for (String source : affectedSources) {
+            if (resolvedIncludes.contains(source)) {
+                changedSources.add(source);
+            }
+        }
+        if (changedSources.isEmpty()) {
+            return null;
+        }
+
+        try {
+            Set<String> staleSources = new LinkedHashSet<>(changedSources);
+            staleSources.addAll(AjcHelper.getReferringSources(resolvedIncludes, changedSources, encoding));
+            return staleSources;
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not read sources to determine the incremental build", e);
+        }
+    }
+
+    /**
+     * Assembles the ajc arguments of the two compiler runs of {@code reweaveOnAspectChange}: the first compiles
+     * without weaving into the staging directory, the second weaves the staged classes into the output directory.
+     * If only aspect sources are stale, the first run only compiles these aspects, with the previously staged classes
+     * on the aspectpath; otherwise it compiles all sources into an emptied staging directory.
+     *
+     * @param outDir the output directory
+     * @return the arguments of the compiler runs, in order
+     * @throws MojoExecutionException if the previous build or the sources cannot be read
+     */
+    protected List<List<String>> getReweaveArguments(File outDir) throws MojoExecutionException {
+        File stagingDirectory = getStagingDirectory(outDir);
+        Set<String> staleSources = forceAjcCompile || !stagingDirectory.isDirectory() ? null : getStaleSources(outDir);
+        try {
+            if (staleSources != null) {
+                for (String source : staleSources) {
+                    if (!AjcHelper.isAspectSource(new File(source), encoding)) {
+                        getLog().debug("Reweave not possible, source [" + source + "] is affected");
+                        staleSources = null;
+                        break;
+                    }
+                }
+            }
+
+            List<String> compileArguments;
+            if (staleSources != null) {
+                getLog().info("Aspects changed: compiling " + staleSources.size() + " aspect sources and reweaving "
+                        + stagingDirectory);
+                for (String source : staleSources) {
+                    deleteStagedClasses(stagingDirectory, new File(source));
+                }
+                compileArguments = getStagingCompileArguments(stagingDirectory, staleSources, true);
+            } else {
+                FileUtils.deleteDirectory(stagingDirectory);
+                compileArguments = getStagingCompileArguments(stagingDirectory, resolvedIncludes, false);
+            }
+
+            List<String> weaveArguments = new ArrayList<>();
+            for (String argument : ajcOptions) {
+                if (!resolvedIncludes.contains(argument)) {
+                    weaveArguments.add(argument);
+                }
+            }
+            addToPathArgument(weaveArguments, "-inpath", stagingDirectory.getAbsolutePath());
+            return Arrays.asList(compileArguments, weaveArguments);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not prepare the staging directory " + stagingDirectory, e);
+        }
+    }
+
+    /**
+     * Assembles the ajc arguments compiling the given sources into the staging directory, without weaving. The
+     * classes to weave are only needed on the classpath for this, and the load-time weaving configuration is written
+     * by the weaving run.
+     */
+    private List<String> getStagingCompileArguments(
+            File stagingDirectory, Collection<String> sources, boolean stagingOnAspectpath) {
+        List<String> arguments = new ArrayList<>();
+        String inpath = null;
+        for (int i = 0; i < ajcOptions.size(); i++) {
+            String argument = ajcOptions.get(i);
+            boolean hasValue = i + 1 < ajcOptions.size();
+            if (resolvedIncludes.contains(argument) || "-outxml".equals(argument)) {
+                continue;
+            }
+            if ("-inpath".equals(argument) && hasValue) {
+                inpath = ajcOptions.get(++i);
+            } else if ("-outxmlfile".equals(argument) && hasValue) {
+                i++;
+            } else if ("-d".equals(argument) && hasValue) {
+                arguments.add(argument);
+                arguments.add(stagingDirectory.getAbsolutePath());
+                i++;
+            } else {
+                arguments.add(argument);
+            }
+        }
+        if (inpath != null) {
+            addToPathArgument(arguments, "-classpath", inpath);
+        }
+        if (stagingOnAspectpath) {
+            addToPathArgument(arguments, "-aspectpath", stagingDirectory.getAbsolutePath());
+        }
+        arguments.add("-XterminateAfterCompilation");
+        arguments.addAll(sources);
+        return arguments;
+    }
+
+    /**
+     * Deletes the staged class files of a source, i.e. its top level type and the types nested in it, so they are
+     * neither on the aspectpath when compiling the source again nor left over if removed from the source.
+     */
+    private void deleteStagedClasses(File stagingDirectory, File source) throws IOException {
+        String packageName = AjcHelper.getPackageName(source, encoding);
+        File packageDirectory = packageName.isEmpty()
+                ? stagingDirectory
+                : new File(stagingDirectory, packageName.replace('.', File.separatorChar));
+        String typeName = FileUtils.removeExtension(source.getName());
+        File[] classFiles = packageDirectory.listFiles();
+        if (classFiles != null) {
+            for (File classFile : classFiles) {
+                String name = classFile.getName();
+                if (name.equals(typeName + ".class") || (name.startsWith(typeName + "$") && name.endsWith(".class"))) {
+                    FileUtils.forceDelete(classFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param outDir the output directory
+     * @return the directory the classes are compiled to before weaving, if {@code reweaveOnAspectChange} is set
+     */
+    protected File getStagingDirectory(File outDir) {
+        return new File(outDir.getParentFile(), outDir.getName() + "-unwoven");
+    }
+
+    /**
+     * Appends a path element to the value of a path argument, adding the argument if it is not present yet.
+     */
+    private static void addToPathArgument(final List<String> arguments, final String argument, final String path) {
+        int index = arguments.indexOf(argument);
+        if (index >= 0 && index + 1 < arguments.size()) {
+            arguments.set(index + 1, arguments.get(index + 1) + File.pathSeparatorChar + path);
+        } else {
+            arguments.add(argument);
+            arguments.add(path);
+        }
+    }
+
     /**
      * Assembles a complete ajc compiler arguments list.
      *
      * @throws MojoExecutionException error in configuration
      */
     protected void assembleArguments() throws MojoExecutionException {
+        buildManifest = null;
         if (XhasMember) {
             ajcOptions.add("-XhasMember");
         }
 
         // Add classpath
         ajcOptions.add("-classpath");
-        ajcOptions.add(AjcHelper.createClassPath(project, null, getClasspathDirectories()));
+        ajcOptions.add(AjcHelper.createClassPath(project, null, getClasspathDirectories(), skipJarsWithoutClasses));
 
         // Add boot classpath
         if (null != bootclasspath) {
@@ -618,9 +1563,15 @@ public abstract class AbstractAjcCompiler extends AbstractAjcMojo {
         }
 
         // Add artifacts or directories to weave
+        inpathFilters.clear();
         String joinedWeaveDirectories = null;
         if (weaveDirectories != null) {
-            joinedWeaveDirectories = StringUtils.join(weaveDirectories, File.pathSeparator);
+            List<String> inpathDirectories = new ArrayList<>();
+            for (String weaveDirectory : weaveDirectories) {
+                inpathDirectories.add(
+                        getInpathEntry(new File(weaveDirectory), weaveDirectoryIncludes, weaveDirectoryExcludes));
+            }
+            joinedWeaveDirectories = StringUtils.join(inpathDirectories.iterator(), File.pathSeparator);
         }
         addModulesArgument(
                 "-inpath",
@@ -708,30 +1659,15 @@ public abstract class AbstractAjcCompiler extends AbstractAjcMojo {
             }
 
             for (Module module : modules) {
-                // String key = ArtifactUtils.versionlessKey( module.getGroupId(), module.getArtifactId() );
-                // Artifact artifact = (Artifact) project.getArtifactMap().get( key );
-                Artifact artifact = null;
-                @SuppressWarnings("unchecked")
-                Set<Artifact> allArtifacts = project.getArtifacts();
-                for (Artifact art : allArtifacts) {
-                    if (art.getGroupId().equals(module.getGroupId())
-                            && art.getArtifactId().equals(module.getArtifactId())
-                            && StringUtils.defaultString(module.getClassifier())
-                                    .equals(StringUtils.defaultString(art.getClassifier()))
-                            && StringUtils.defaultString(module.getType(), "jar")
-                                    .equals(StringUtils.defaultString(art.getType()))) {
-                        artifact = art;
-                        break;
-                    }
-                }
-                if (artifact == null) {
-                    throw new MojoExecutionException("The artifact " + module.toString()
-                            + " referenced in aspectj plugin as " + role + ", is not found the project dependencies");
-                }
+                Artifact artifact = resolveModule(module, role);
                 if (buf.length() != 0) {
                     buf.append(File.pathSeparatorChar);
                 }
-                buf.append(artifact.getFile().getPath());
+                if ("-inpath".equals(argument)) {
+                    buf.append(getInpathEntry(artifact.getFile(), module.getIncludes(), module.getExcludes()));
+                } else {
+                    buf.append(artifact.getFile().getPath());
+                }
             }
         }
         if (buf.length() > 0) {
@@ -741,6 +1677,55 @@ public abstract class AbstractAjcCompiler extends AbstractAjcMojo {
         }
     }
 
+    /**
+     * Determines the inpath entry of a jar or directory to weave: if only some of its classes are to be woven, those
+     * are staged by an {@link InpathFilter}, and the jar or directory itself is added to the classpath, so the weaver
+     * still resolves the classes not woven.
+     *
+     * @param file the jar or directory to weave
+     * @param includes the patterns of the classes to weave, or {@code null}
+     * @param excludes the patterns of the classes not to weave, or {@code null}
+     * @return the path to add to the inpath
+     */
+    private String getInpathEntry(File file, String[] includes, String[] excludes) {
+        if (InpathFilter.isUnfiltered(includes, excludes)) {
+            return file.getPath();
+        }
+        InpathFilter filter =
+                new InpathFilter(file, includes, excludes, getInpathStagingDirectory(), inpathFilters.size() + 1);
+        inpathFilters.add(filter);
+        addToPathArgument(ajcOptions, "-classpath", file.getAbsolutePath());
+        return filter.getStagingDirectory().getAbsolutePath();
+    }
+
+    /**
+     * @return the directory next to the output directory the classes to weave are staged in by the
+     *         {@link InpathFilter}s
+     */
+    private File getInpathStagingDirectory() {
+        File outDir = getOutputDirectory().getAbsoluteFile();
+        return new File(outDir.getParentFile(), outDir.getName() + "-inpath");
+    }
+
+    /**
+     * Writes the arguments file and the manifest of the inputs of this build, which the next build compares its own
+     * arguments and inputs to.
+     *
+     * @throws MojoExecutionException if the files cannot be written
+     */
+    protected void writeBuildFiles() throws MojoExecutionException {
+        try {
+            AjcHelper.writeBuildConfigToFile(
+                    getRelocatablePaths().relativize(ajcOptions), argumentFileName, getOutputDirectory());
+            getLog().debug("Arguments file written : "
+                    + new File(getOutputDirectory(), argumentFileName).getAbsolutePath());
+            getBuildManifest(getOutputDirectory())
+                    .write(getBuildManifestFile(getOutputDirectory()), getRelocatablePaths());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not write arguments file to the target area", e);
+        }
+    }
+
     /**
      * Checks modifications that would make us need a build
      *
@@ -749,10 +1734,30 @@ public abstract class AbstractAjcCompiler extends AbstractAjcMojo {
      */
     protected boolean isBuildNeeded() throws MojoExecutionException {
         File outDir = getOutputDirectory();
+        buildManifest = null;
         return hasNoPreviousBuild(outDir)
                 || hasArgumentsChanged(outDir)
                 || hasSourcesChanged(outDir)
-                || hasNonWeavedClassesChanged(outDir);
+                || hasNonWeavedClassesChanged(outDir)
+                || hasClasspathChanged(outDir);
+    }
+
+    private boolean hasClasspathChanged(File outDir) throws MojoExecutionException {
+        Set<String> affectedSources = getSourcesAffectedByClasspath(outDir);
+        return affectedSources == null || !affectedSources.isEmpty();
+    }
+
+    /**
+     * Determines the sources affected by changes of classes on the classpath since the previous build, which are not
+     * tracked by the arguments of the build. By default, changes of the classpath are not tracked.
+     *
+     * @param outDir the output directory of the previous build
+     * @return the affected sources, possibly empty; or {@code null} if all sources are affected
+     * @throws MojoExecutionException if the classes or the previous build cannot be read
+     * @since 1.17
+     */
+    protected Set<String> getSourcesAffectedByClasspath(File outDir) throws MojoExecutionException {
+        return Collections.emptySet();
     }
 
     private boolean hasNoPreviousBuild(File outDir) {
@@ -760,13 +1765,45 @@ public abstract class AbstractAjcCompiler extends AbstractAjcMojo {
     }
 
     private boolean hasArgumentsChanged(File outDir) throws MojoExecutionException {
+        // The order of the sources depends on their paths, which may differ from the previous build
+        List<String> previousOptions = new ArrayList<>();
+        Set<String> previousSources = new HashSet<>();
+        for (String argument : readPreviousArguments(outDir)) {
+            if (resolvedIncludes.contains(argument)) {
+                previousSources.add(argument);
+            } else {
+                previousOptions.add(argument);
+            }
+        }
+        List<String> currentOptions = new ArrayList<>(ajcOptions);
+        currentOptions.removeAll(resolvedIncludes);
+        return !currentOptions.equals(previousOptions) || !previousSources.equals(resolvedIncludes);
+    }
+
+    /**
+     * @param outDir the output directory of the previous build
+     * @return the arguments of the previous build, with absolute paths
+     * @throws MojoExecutionException if the arguments cannot be read
+     */
+    private List<String> readPreviousArguments(File outDir) throws MojoExecutionException {
         try {
-            return (!ajcOptions.equals(AjcHelper.readBuildConfigFile(argumentFileName, outDir)));
+            return getRelocatablePaths().resolve(AjcHelper.readBuildConfigFile(argumentFileName, outDir));
         } catch (IOException e) {
-            throw new MojoExecutionException("Error during reading of previous argumentsfile ");
+            throw new MojoExecutionException("Error during reading of previous argumentsfile ", e);
         }
     }
 
+    /**
+     * @return the roots paths in the {@code argumentFileName} and manifest files are stored relative to
+     */
+    protected RelocatablePaths getRelocatablePaths() {
+        Map<String, File> roots = new LinkedHashMap<>();
+        roots.put("basedir", basedir);
+        roots.put("rootdir", executionRootDirectory);
+        roots.put("localRepository", localRepository);
+        return new RelocatablePaths(roots);
+    }
+
     /**
      * Not entirely safe, assembleArguments() must be run
      */
@@ -774,7 +1811,16 @@ public abstract class AbstractAjcCompiler extends AbstractAjcMojo {
         return resolvedIncludes.size() > 0;
     }
 
-    private boolean hasSourcesChanged(File outDir) {
+    private boolean hasSourcesChanged(File outDir) throws MojoExecutionException {
+        Set<String> changedInputs = getChangedInputs(outDir);
+        if (changedInputs != null) {
+            for (String source : resolvedIncludes) {
+                if (changedInputs.contains(source)) {
+                    return true;
+                }
+            }
+            return false;
+        }
         long lastBuild = new File(outDir, argumentFileName).lastModified();
         for (String source : resolvedIncludes) {
             File sourceFile = new File(source);
@@ -788,6 +1834,14 @@ public abstract class AbstractAjcCompiler extends AbstractAjcMojo {
 
     private boolean hasNonWeavedClassesChanged(File outDir) throws MojoExecutionException {
         if (weaveDirectories != null && weaveDirectories.length > 0) {
+            Set<String> changedInputs = getChangedInputs(outDir);
+            if (changedInputs != null) {
+                // Sources are tracked by the argument file, so any other changed or removed input is a weaved class
+                return !resolvedIncludes.containsAll(changedInputs)
+                        || !buildManifest
+                                .getFiles()
+                                .containsAll(readPreviousBuildManifest(outDir).getFiles());
+            }
             Set<String> weaveSources = AjcHelper.getWeaveSourceFiles(weaveDirectories);
             long lastBuild = new File(outDir, argumentFileName).lastModified();
             for (String source : weaveSources) {
@@ -801,6 +1855,115 @@ public abstract class AbstractAjcCompiler extends AbstractAjcMojo {
         return false;
     }
 
+    /**
+     * Determines the sources and classes to weave whose content changed since the previous build.
+     *
+     * @param outDir the output directory of the previous build
+     * @return the changed or added inputs, or {@code null} if the previous build did not record a manifest
+     * @throws MojoExecutionException if the manifests cannot be read or created
+     */
+    private Set<String> getChangedInputs(File outDir) throws MojoExecutionException {
+        BuildManifest previousManifest = readPreviousBuildManifest(outDir);
+        if (previousManifest == null) {
+            return null;
+        }
+        return previousManifest.getChangedFiles(getBuildManifest(outDir));
+    }
+
+    /**
+     * @param outDir the output directory of the previous build
+     * @return the manifest recorded by the previous build, or {@code null} if there is none
+     * @throws MojoExecutionException if the manifest cannot be read
+     */
+    private BuildManifest readPreviousBuildManifest(File outDir) throws MojoExecutionException {
+        try {
+            return BuildManifest.read(getBuildManifestFile(outDir), getRelocatablePaths());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error during reading of previous build manifest", e);
+        }
+    }
+
+    /**
+     * Creates the manifest of the sources and classes to weave of this build, if not done yet.
+     *
+     * @param outDir the output directory of the previous build
+     * @return the manifest of this build
+     * @throws MojoExecutionException if the inputs cannot be resolved or read
+     */
+    private BuildManifest getBuildManifest(File outDir) throws MojoExecutionException {
+        if (buildManifest == null) {
+            Set<String> inputs = new LinkedHashSet<>(resolvedIncludes);
+            if (weaveDirectories != null && weaveDirectories.length > 0) {
+                inputs.addAll(AjcHelper.getWeaveSourceFiles(weaveDirectories));
+            }
+            try {
+                buildManifest = BuildManifest.create(inputs, readPreviousBuildManifest(outDir));
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not compute the checksums of the sources to compile", e);
+            }
+        }
+        return buildManifest;
+    }
+
+    private File getBuildManifestFile(File outDir) {
+        return new File(outDir, argumentFileName + ".manifest");
+    }
+
+    /**
+     * @param outDir the output directory
+     * @return the file recording the checksums of the files in the output directory, for {@code keepUnchangedOutput}
+     */
+    private File getOutputManifestFile(File outDir) {
+        return new File(outDir, argumentFileName + ".output");
+    }
+
+    /**
+     * @param outDir the output directory
+     * @return the files in the output directory, except the files recording the build
+     * @throws IOException if the output directory cannot be read
+     */
+    private List<String> getOutputFiles(File outDir) throws IOException {
+        List<String> files = new ArrayList<>();
+        if (outDir.isDirectory()) {
+            try (Stream<Path> paths = Files.walk(outDir.toPath())) {
+                for (Path path : (Iterable<Path>) paths::iterator) {
+                    if (Files.isRegularFile(path)
+                            && !path.getFileName().toString().startsWith(argumentFileName)) {
+                        files.add(path.toString());
+                    }
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Restores the modification time of the output files rewritten with unchanged content, reports the number of
+     * modified classes, and records the checksums of the output files for the next build.
+     *
+     * @param outputBefore the manifest of the output files before the compiler ran
+     * @throws IOException if the output files cannot be read or their modification time cannot be restored
+     */
+    private void keepUnchangedOutput(BuildManifest outputBefore) throws IOException {
+        File outDir = getOutputDirectory();
+        BuildManifest outputAfter = BuildManifest.create(getOutputFiles(outDir), outputBefore);
+        int modifiedClasses = 0;
+        for (String file : outputBefore.getChangedFiles(outputAfter)) {
+            if (file.endsWith(".class")) {
+                modifiedClasses++;
+            }
+        }
+        int unchangedClasses = 0;
+        for (String file : outputAfter.restoreUnchangedFiles(outputBefore)) {
+            if (file.endsWith(".class")) {
+                unchangedClasses++;
+            }
+        }
+        getLog().info("AspectJ modified " + modifiedClasses + " classes, kept " + unchangedClasses
+                + " rewritten but unchanged classes");
+        outputAfter.write(getOutputManifestFile(outDir), getRelocatablePaths());
+    }
+
     /**
      * Setters which when called sets compiler arguments
      *
@@ -24,8 +24,11 @@ package org.codehaus.mojo.aspectj;
  * SOFTWARE.
  */
 import java.io.File;
+import java.util.List;
 
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 
@@ -53,6 +56,7 @@ public abstract class AbstractAjcMojo extends AbstractMojo {
     /**
      * List of of modules to weave (into target directory). Corresponds to <code>ajc
      * -inpath</code> option (or <code>-injars</code> for pre-1.2 (which is not supported)).
+     * The classes to weave of a module may be restricted by its <code>includes</code> and <code>excludes</code>.
      *
      */
     @Parameter
@@ -67,6 +71,24 @@ public abstract class AbstractAjcMojo extends AbstractMojo {
     @Parameter
     protected String[] weaveDirectories;
 
+    /**
+     * Patterns of the class files in the {@code weaveDirectories} to weave, e.g. {@code com/example/service/**}. All
+     * other files are copied to the target directory unchanged. All classes are woven if none are given.
+     *
+     * @since 1.17
+     */
+    @Parameter
+    protected String[] weaveDirectoryIncludes;
+
+    /**
+     * Patterns of the class files in the {@code weaveDirectories} not to weave, which are copied to the target
+     * directory unchanged.
+     *
+     * @since 1.17
+     */
+    @Parameter
+    protected String[] weaveDirectoryExcludes;
+
     /**
      * Weave binary aspects from the jars.
      * The aspects should have been output by the same version of the compiler.
@@ -93,6 +115,11 @@ public abstract class AbstractAjcMojo extends AbstractMojo {
     @Parameter(defaultValue = "false", property = "aspectj.skip")
     private boolean skip;
 
+    /**
+     * The dependencies of the project, indexed on the first module lookup.
+     */
+    private ArtifactIndex artifactIndex;
+
     /**
      * @return <code>true</code> if execution should be skipped, otherwise <code>false</code>
      */
@@ -100,6 +127,35 @@ public abstract class AbstractAjcMojo extends AbstractMojo {
         return skip;
     }
 
+    /**
+     * Finds the project dependency referenced by a module. The dependencies are indexed on the first lookup of an
+     * execution, so resolving many modules against many dependencies does not scan all dependencies for each module.
+     *
+     * @param module the module
+     * @param role the role of the module, for the error message
+     * @return the artifact of the module
+     * @throws MojoExecutionException if the module is not a dependency of the project
+     */
+    protected Artifact resolveModule(final Module module, final String role) throws MojoExecutionException {
+        if (artifactIndex == null) {
+            artifactIndex = new ArtifactIndex(project.getArtifacts());
+        }
+        Artifact artifact = artifactIndex.get(module);
+        if (artifact == null) {
+            StringBuilder message = new StringBuilder("The artifact " + module.toString()
+                    + " referenced in aspectj plugin as " + role + ", is not found the project dependencies");
+            List<Artifact> nearMisses = artifactIndex.getNearMisses(module);
+            if (!nearMisses.isEmpty()) {
+                message.append(". Did you mean one of:");
+                for (Artifact nearMiss : nearMisses) {
+                    message.append(System.lineSeparator()).append("  ").append(nearMiss.getId());
+                }
+            }
+            throw new MojoExecutionException(message.toString());
+        }
+        return artifact;
+    }
+
     /**
      * Parameter which indicates an XML file containing AspectJ weaving instructions.
      * Assigning this plugin parameter adds the <code>-xmlConfigured</code> option to ajc.
@@ -24,9 +24,11 @@ package org.codehaus.mojo.aspectj;
  * SOFTWARE.
  */
 import java.io.File;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -60,6 +62,23 @@ public class AjcCompileMojo extends AbstractAjcCompiler {
     @Parameter(defaultValue = "${project.build.directory}/generated-sources/aspectj-maven-plugin")
     private File generatedSourcesDirectory;
 
+    /**
+     * The file the {@code profile} is written to.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "${project.build.directory}/aspectj-profile.json")
+    private File profileFile;
+
+    /**
+     * The file the {@code weaveInfoReport} is written to, as JSON if its name ends with {@code .json}, otherwise as
+     * CSV.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "${project.build.directory}/aspectj-weave-info.csv")
+    private File weaveInfoFile;
+
     /**
      * <p>
      * Set the java source folders to use, specifying the includes and excludes.
@@ -76,6 +95,36 @@ public class AjcCompileMojo extends AbstractAjcCompiler {
     @Parameter
     private Scanner[] sources;
 
+    /**
+     * Copies the aspects among the compiled classes to the {@code aspectSnapshotDirectory} after each compilation. The
+     * {@code test-compile} goal then weaves the test classes with the aspects of this snapshot instead of all main
+     * classes, which it would otherwise load and resolve completely.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "false", property = "aspectj.snapshotAspects")
+    private boolean snapshotAspects;
+
+    /**
+     * The directory of the snapshot of the aspects, see {@code snapshotAspects}.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "${project.build.directory}/aspectj-main-aspects")
+    private File aspectSnapshotDirectory;
+
+    @Override
+    protected void outputUpdated() throws MojoExecutionException {
+        if (snapshotAspects) {
+            try {
+                List<String> files = new AspectSnapshot(aspectSnapshotDirectory).write(outputDirectory);
+                getLog().debug("Copied " + files.size() + " aspect classes to " + aspectSnapshotDirectory);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not copy the aspects to " + aspectSnapshotDirectory, e);
+            }
+        }
+    }
+
     protected File getOutputDirectory() {
         return outputDirectory;
     }
@@ -107,4 +156,14 @@ public class AjcCompileMojo extends AbstractAjcCompiler {
     protected String getAdditionalAspectPaths() {
         return null;
     }
+
+    @Override
+    protected File getProfileFile() {
+        return profileFile;
+    }
+
+    @Override
+    protected File getWeaveInfoFile() {
+        return weaveInfoFile;
+    }
 }
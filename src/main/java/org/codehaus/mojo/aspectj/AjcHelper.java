@@ -31,20 +31,34 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.DirectoryScanner;
 import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.MatchPatterns;
+import org.codehaus.plexus.util.SelectorUtils;
 import org.codehaus.plexus.util.StringUtils;
 
 /**
@@ -57,6 +71,20 @@ public class AjcHelper {
 
     public static final String DEFAULT_EXCLUDES = "";
 
+    /**
+     * Matches code style aspect declarations at the start of a line, and the annotation marking annotation style
+     * aspects.
+     */
+    private static final Pattern ASPECT_DECLARATION = Pattern.compile(
+            "^\\s*(?:(?:public|protected|private|abstract|final|static|privileged)\\s+)*aspect\\s+\\w|@Aspect\\b",
+            Pattern.MULTILINE);
+
+    /**
+     * Matches the package declaration of a source.
+     */
+    private static final Pattern PACKAGE_DECLARATION =
+            Pattern.compile("^\\s*package\\s+([\\w.\\s]+?)\\s*;", Pattern.MULTILINE);
+
     /**
      * List holding all accepted values for the {@code complianceLevel} parameter.
      */
@@ -77,47 +105,96 @@ public class AjcHelper {
     }
 
     /**
-     * Constructs AspectJ compiler classpath string
+     * Constructs AspectJ compiler classpath string.
      *
      * @param project the Maven Project
      * @param pluginArtifacts the plugin Artifacts
      * @param outDirs the outputDirectories
      * @return a os spesific classpath string
      */
-    @SuppressWarnings("unchecked")
     public static String createClassPath(MavenProject project, List<Artifact> pluginArtifacts, List<String> outDirs) {
-        String cp = "";
-        Set<Artifact> classPathElements = Collections.synchronizedSet(
-                // LinkedHashSet preserves order by insertion for iteration
-                new LinkedHashSet<>());
+        return createClassPath(project, pluginArtifacts, outDirs, false);
+    }
+
+    /**
+     * Constructs AspectJ compiler classpath string, optionally leaving out the jars without classes.
+     *
+     * @param project the Maven Project
+     * @param pluginArtifacts the plugin Artifacts
+     * @param outDirs the outputDirectories
+     * @param skipJarsWithoutClasses {@code true} to leave out the jars which neither contain class files nor register
+     * services
+     * @return a os spesific classpath string
+     * @see #createClassPath(MavenProject, List, List)
+     * @since 1.17
+     */
+    @SuppressWarnings("unchecked")
+    public static String createClassPath(
+            MavenProject project,
+            List<Artifact> pluginArtifacts,
+            List<String> outDirs,
+            boolean skipJarsWithoutClasses) {
+        // LinkedHashSet preserves order by insertion for iteration
+        Set<Artifact> classPathElements = new LinkedHashSet<>();
         Set<Artifact> dependencyArtifacts = project.getDependencyArtifacts();
         // Set.addAll only adds if absent, so we want to add the project artifacts first
         classPathElements.addAll(project.getArtifacts());
         classPathElements.addAll(dependencyArtifacts == null ? Collections.emptySet() : dependencyArtifacts);
         classPathElements.addAll(pluginArtifacts == null ? Collections.emptySet() : pluginArtifacts);
 
+        List<File> artifactFiles = new ArrayList<>(classPathElements.size());
         for (Artifact classPathElement : classPathElements) {
             File artifact = classPathElement.getFile();
-            if (null != artifact) {
-                String type = classPathElement.getType();
-                if (!type.equals("pom")) {
-                    cp += classPathElement.getFile().getAbsolutePath();
-                    cp += File.pathSeparatorChar;
-                }
+            if (null != artifact && !"pom".equals(classPathElement.getType())) {
+                artifactFiles.add(artifact);
             }
         }
-        Iterator<String> outIter = outDirs.iterator();
-        while (outIter.hasNext()) {
-            cp += outIter.next();
-            cp += File.pathSeparatorChar;
+        if (skipJarsWithoutClasses) {
+            artifactFiles.removeAll(getJarsWithoutClasses(artifactFiles));
         }
 
-        if (cp.endsWith("" + File.pathSeparatorChar)) {
-            cp = cp.substring(0, cp.length() - 1);
+        StringBuilder cp = new StringBuilder();
+        for (File artifactFile : artifactFiles) {
+            cp.append(artifactFile.getAbsolutePath()).append(File.pathSeparatorChar);
+        }
+        for (String outDir : outDirs) {
+            cp.append(outDir).append(File.pathSeparatorChar);
+        }
+        if (cp.length() > 0) {
+            cp.setLength(cp.length() - 1);
         }
 
-        cp = StringUtils.replace(cp, "//", "/");
-        return cp;
+        return StringUtils.replace(cp.toString(), "//", "/");
+    }
+
+    /**
+     * Determines the jars which neither contain class files nor register services, e.g. jars with web resources only,
+     * which the compiler does not need on its classpath. The jars are looked up in the {@link JarContentCache}, so only
+     * the jars new to the build are read.
+     *
+     * @param files the classpath elements
+     * @return the jars without classes, jars which cannot be read are not included
+     */
+    static Set<File> getJarsWithoutClasses(List<File> files) {
+        List<File> jars = new ArrayList<>(files.size());
+        for (File file : files) {
+            if (JarContentCache.isArchive(file)) {
+                jars.add(file);
+            }
+        }
+        Set<File> withoutClasses = new HashSet<>();
+        try {
+            for (JarContentCache.JarContent content :
+                    JarContentCache.getInstance().getContents(jars)) {
+                if (!content.hasClasses() && !content.hasServices()) {
+                    withoutClasses.add(content.getJar());
+                }
+            }
+        } catch (IOException e) {
+            // Leave it to the compiler to report unreadable jars
+            return Collections.emptySet();
+        }
+        return withoutClasses;
     }
 
     /**
@@ -152,6 +229,8 @@ public class AjcHelper {
     /**
      * Based on a set of sourcedirs, apply include and exclude statements and
      * returns a set of all the files to be compiled and woven.
+     * The source directories are walked concurrently, and the files are returned in a deterministic order: by source
+     * directory, then sorted by path.
      *
      * @param sourceDirs source directories
      * @param includes file include patterns
@@ -161,26 +240,123 @@ public class AjcHelper {
      */
     public static Set<String> getBuildFilesForSourceDirs(List<String> sourceDirs, String[] includes, String[] excludes)
             throws MojoExecutionException {
-        Set<String> result = new LinkedHashSet<String>();
-
-        for (String sourceDir : sourceDirs) {
-            try {
-                if (FileUtils.fileExists(sourceDir)) {
-                    result.addAll(FileUtils.getFileNames(
-                            new File(sourceDir),
-                            (null == includes || 0 == includes.length) ? DEFAULT_INCLUDES : getAsCsv(includes),
-                            (null == excludes || 0 == excludes.length) ? DEFAULT_EXCLUDES : getAsCsv(excludes),
-                            true));
-                }
-            } catch (IOException e) {
-                throw new MojoExecutionException("IO Error resolving sourcedirs", e);
+        final MatchPatterns includePatterns = MatchPatterns.from(normalizePatterns(
+                (null == includes || 0 == includes.length) ? new String[] {DEFAULT_INCLUDES} : includes));
+        List<String> excludeList = normalizePatterns(excludes);
+        final MatchPatterns excludePatterns = MatchPatterns.from(excludeList);
+        // Excludes of whole directories, which are not walked at all
+        List<String> directoryExcludeList = new ArrayList<>();
+        for (String exclude : excludeList) {
+            if (exclude.equals("**") || exclude.endsWith(File.separator + "**")) {
+                directoryExcludeList.add(exclude);
             }
         }
+        final MatchPatterns directoryExcludePatterns = MatchPatterns.from(directoryExcludeList);
+
+        List<List<String>> sourceDirFiles;
+        try {
+            sourceDirFiles = sourceDirs.parallelStream()
+                    .map(sourceDir -> {
+                        try {
+                            return scanSourceDir(
+                                    new File(sourceDir), includePatterns, excludePatterns, directoryExcludePatterns);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw new MojoExecutionException("IO Error resolving sourcedirs", e.getCause());
+        }
+
+        Set<String> result = new LinkedHashSet<String>();
+        for (List<String> files : sourceDirFiles) {
+            result.addAll(files);
+        }
         // We might need to check if some of these files are already included through the weaveDirectories.
 
         return result;
     }
 
+    /**
+     * Finds the files of a source directory matching the given patterns, the same way a plexus
+     * {@link DirectoryScanner} does, following symbolic links.
+     *
+     * @return the paths of the matching files, prefixed by the source directory and sorted
+     */
+    private static List<String> scanSourceDir(
+            final File sourceDir,
+            final MatchPatterns includes,
+            final MatchPatterns excludes,
+            final MatchPatterns directoryExcludes)
+            throws IOException {
+        final List<String> files = new ArrayList<>();
+        if (!sourceDir.isDirectory()) {
+            return files;
+        }
+        final Path root = sourceDir.toPath();
+        Files.walkFileTree(
+                root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        String name = root.relativize(dir).toString();
+                        if (name.isEmpty()) {
+                            return FileVisitResult.CONTINUE;
+                        }
+                        return includes.matchesPatternStart(name, true) && !directoryExcludes.matches(name, true)
+                                ? FileVisitResult.CONTINUE
+                                : FileVisitResult.SKIP_SUBTREE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        String name = root.relativize(file).toString();
+                        if (!attrs.isDirectory() && includes.matches(name, true) && !excludes.matches(name, true)) {
+                            files.add(sourceDir + File.separator + name);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                        if (e instanceof FileSystemLoopException) {
+                            // A symbolic link to a parent directory, whose files are found anyway
+                            return FileVisitResult.CONTINUE;
+                        }
+                        throw e;
+                    }
+                });
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * Normalizes include or exclude patterns like {@link DirectoryScanner} does: comma separated patterns are split,
+     * the patterns use the platform file separator, and a trailing file separator matches all files below.
+     */
+    static List<String> normalizePatterns(String[] patterns) {
+        List<String> normalized = new ArrayList<>();
+        if (patterns == null) {
+            return normalized;
+        }
+        for (String csv : patterns) {
+            for (String pattern : StringUtils.split(csv, ",")) {
+                pattern = pattern.trim();
+                if (pattern.isEmpty()) {
+                    continue;
+                }
+                if (!pattern.startsWith(SelectorUtils.REGEX_HANDLER_PREFIX)) {
+                    pattern = pattern.replace('/', File.separatorChar).replace('\\', File.separatorChar);
+                    if (pattern.endsWith(File.separator)) {
+                        pattern += "**";
+                    }
+                }
+                normalized.add(pattern);
+            }
+        }
+        return normalized;
+    }
+
     /**
      * Based on a set of weave directories returns a set of all the files to be woven.
      *
@@ -254,6 +430,80 @@ public class AjcHelper {
         return arguments;
     }
 
+    /**
+     * Checks if the given compiler argument denotes a Java or AspectJ source file.
+     *
+     * @param argument a compiler argument
+     * @return {@code true} if the argument is the path of a .java or .aj file
+     */
+    public static boolean isSourceFileArgument(String argument) {
+        return argument.endsWith(".java") || argument.endsWith(".aj");
+    }
+
+    /**
+     * Checks if the given source file declares an aspect, either in code style or annotation style.
+     * The check is done on the source text, so it may also report aspects which are commented out.
+     *
+     * @param sourceFile a .java or .aj source file
+     * @param encoding the source encoding, or {@code null} for the platform encoding
+     * @return {@code true} if the source (possibly) declares an aspect
+     * @throws IOException if the source cannot be read
+     */
+    public static boolean isAspectSource(File sourceFile, String encoding) throws IOException {
+        return sourceFile.getName().endsWith(".aj")
+                || ASPECT_DECLARATION
+                        .matcher(FileUtils.fileRead(sourceFile, encoding))
+                        .find();
+    }
+
+    /**
+     * Determines the package of a source from its package declaration.
+     *
+     * @param source a Java or AspectJ source file
+     * @param encoding the encoding of the source, or {@code null} for the platform encoding
+     * @return the package name, or an empty string for the default package
+     * @throws IOException if the source cannot be read
+     */
+    public static String getPackageName(File source, String encoding) throws IOException {
+        Matcher matcher = PACKAGE_DECLARATION.matcher(FileUtils.fileRead(source, encoding));
+        return matcher.find() ? matcher.group(1).replaceAll("\\s", "") : "";
+    }
+
+    /**
+     * Finds the sources referring to the top level types of the given changed sources. A type is considered to be
+     * referred to if its simple name occurs as a word in the source text.
+     *
+     * @param sources all sources of the build
+     * @param changedSources the changed sources, named after the top level types they declare
+     * @param encoding the source encoding, or {@code null} for the platform encoding
+     * @return the sources not contained in {@code changedSources} which refer to one of the changed types
+     * @throws IOException if a source cannot be read
+     */
+    public static Set<String> getReferringSources(Set<String> sources, Set<String> changedSources, String encoding)
+            throws IOException {
+        Set<String> result = new LinkedHashSet<>();
+        if (changedSources.isEmpty()) {
+            return result;
+        }
+        StringBuilder typeNames = new StringBuilder();
+        for (String changedSource : changedSources) {
+            if (typeNames.length() > 0) {
+                typeNames.append('|');
+            }
+            typeNames.append(Pattern.quote(FileUtils.removeExtension(new File(changedSource).getName())));
+        }
+        Pattern referencePattern = Pattern.compile("\\b(?:" + typeNames + ")\\b");
+        for (String source : sources) {
+            if (!changedSources.contains(source)
+                    && referencePattern
+                            .matcher(FileUtils.fileRead(new File(source), encoding))
+                            .find()) {
+                result.add(source);
+            }
+        }
+        return result;
+    }
+
     /**
      * Convert a string array to a comma separated list
      *
@@ -24,12 +24,27 @@ package org.codehaus.mojo.aspectj;
  * SOFTWARE.
  */
 import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.handler.ArtifactHandler;
@@ -39,7 +54,10 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.reporting.AbstractMavenReport;
 import org.apache.maven.reporting.MavenReportException;
+import org.aspectj.bridge.IMessage;
+import org.aspectj.bridge.MessageHandler;
 import org.aspectj.tools.ajdoc.Main;
+import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.StringUtils;
 
 /**
@@ -177,6 +195,56 @@ public class AjcReportMojo extends AbstractMavenReport {
     @Parameter(defaultValue = "${mojo.java.target}")
     protected String complianceLevel;
 
+    /**
+     * Groups of packages to generate the report for separately, and concurrently. Each group is a colon separated list
+     * of packages, where a trailing {@code *} matches all packages starting with the given name, e.g.
+     * {@code com.example.core*:com.example.util}. The sources of packages not matched by any group form a group of
+     * their own. Each group is written to a directory of its own, and the report index links to the packages of all
+     * groups. The sources of all groups are compiled, without weaving, before the groups are generated, so each group
+     * resolves the types of the others even if the classes of the project have not been compiled.
+     * <p>
+     * <b>Caveat:</b> the report of a group only shows the crosscutting relationships between the aspects and classes of
+     * that group, so packages whose aspects advise each other should be in the same group.
+     *
+     * @since 1.17
+     */
+    @Parameter
+    private String[] packageGroups;
+
+    /**
+     * The maximum number of {@code packageGroups} generated concurrently. If not positive, the number of processors,
+     * or one if {@code reportBatchSize} is set.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "0", property = "aspectj.reportThreads")
+    private int reportThreads;
+
+    /**
+     * The maximum number of sources documented by a single ajdoc run, to bound the memory of the report. ajdoc holds
+     * the structure model of all the sources it documents, which for a large project may need more memory than the
+     * compilation. With a batch size, the sources of each of the {@code packageGroups}, or all sources if none are
+     * given, are split into batches of whole packages, which are generated one after another, by default, each by an
+     * ajdoc of its own class loader whose structure model is released when it is done. The {@code .aj} aspects are
+     * documented with each batch, so the report of a batch shows where they apply. Not in batches if not positive.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "0", property = "aspectj.reportBatchSize")
+    private int reportBatchSize;
+
+    /**
+     * Skips generating the report if its sources, class path and options did not change since the previous report,
+     * as recorded by a fingerprint in the build directory. With {@code packageGroups}, the fingerprint of each group
+     * covers the sources of all groups, as the pages of a group show members and links of the types of other groups,
+     * and only the groups whose report is missing or outdated are generated again. The classes of the project itself
+     * are not part of the fingerprint, as their sources are.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "true", property = "aspectj.incrementalReport")
+    private boolean incrementalReport;
+
     /**
      * Holder for all options passed
      */
@@ -196,10 +264,11 @@ public class AjcReportMojo extends AbstractMavenReport {
         project.addCompileSourceRoot(basedir.getAbsolutePath() + "/" + aspectDirectory);
         project.addTestCompileSourceRoot(basedir.getAbsolutePath() + "/" + testAspectDirectory);
 
+        String classpath = AjcHelper.createClassPath(project, pluginArtifacts, getClasspathDirectories());
         List<String> arguments = new ArrayList<>();
         // Add classpath
         arguments.add("-classpath");
-        arguments.add(AjcHelper.createClassPath(project, pluginArtifacts, getClasspathDirectories()));
+        arguments.add(classpath);
 
         arguments.addAll(ajcOptions);
 
@@ -214,12 +283,28 @@ public class AjcReportMojo extends AbstractMavenReport {
             throw new MavenReportException("AspectJ Report failed", e);
         }
 
+        if ((packageGroups != null && packageGroups.length > 0) || reportBatchSize > 0) {
+            executeGroupedReport(classpath, includes);
+            return;
+        }
+
         // add target dir argument
         arguments.add("-d");
         arguments.add(StringUtils.replace(getOutputDirectory(), "//", "/"));
 
         arguments.addAll(includes);
 
+        File fingerprintFile = getFingerprintFile();
+        String fingerprint = null;
+        if (incrementalReport) {
+            fingerprint = computeFingerprint(arguments, outputDirectory);
+            if (isReportCurrent(fingerprintFile, fingerprint, outputDirectory)) {
+                getLog().info("ajdoc report is up to date");
+                return;
+            }
+            FileUtils.fileDelete(fingerprintFile.getPath());
+        }
+
         if (getLog().isDebugEnabled()) {
             StringBuilder command = new StringBuilder("Running : ajdoc ");
             for (String argument : arguments) {
@@ -244,6 +329,429 @@ public class AjcReportMojo extends AbstractMavenReport {
         } finally {
             Thread.currentThread().setContextClassLoader(oldContextClassLoader);
         }
+
+        if (fingerprint != null && !Main.hasAborted()) {
+            writeFingerprint(fingerprintFile, fingerprint);
+        }
+    }
+
+    /**
+     * Generates the report of each of the {@code packageGroups}, or of their batches of {@code reportBatchSize}
+     * sources, concurrently, each by an ajdoc of its own class loader
+     * with its own working directory, and writes the report index linking to the packages of all groups. With
+     * {@code incrementalReport}, groups whose fingerprint did not change are not generated again.
+     *
+     * @param classpath the class path of the sources
+     * @param sources the sources to document
+     * @throws MavenReportException if the report of a group cannot be generated
+     */
+    private void executeGroupedReport(String classpath, Set<String> sources) throws MavenReportException {
+        // The report of a single run is replaced by the index of the groups
+        FileUtils.fileDelete(getFingerprintFile().getPath());
+        Map<String, String> packages = new LinkedHashMap<>();
+        try {
+            for (String source : sources) {
+                packages.put(source, AjcHelper.getPackageName(new File(source), null));
+            }
+        } catch (IOException e) {
+            throw new MavenReportException("Could not read the packages of the sources", e);
+        }
+        List<PackageGroup> groups = groupSources(packages, packageGroups != null ? packageGroups : new String[0]);
+        List<String> aspects = new ArrayList<>();
+        if (reportBatchSize > 0) {
+            groups = batchSources(groups, packages, reportBatchSize);
+            for (String source : sources) {
+                if (source.endsWith(".aj")) {
+                    aspects.add(source);
+                }
+            }
+        }
+        if (groups.isEmpty()) {
+            getLog().info("No sources to generate ajdoc for");
+            return;
+        }
+
+        // Each run documents only the sources of its group. As the classes of the project may not have been compiled,
+        // ajc resolves the types of the other groups from classes compiled from all sources, and javadoc from the
+        // source roots.
+        File classesDirectory = getGroupClassesDirectory();
+        List<String> options = new ArrayList<>();
+        options.add("-classpath");
+        options.add(classesDirectory.getAbsolutePath() + File.pathSeparator + classpath);
+        options.addAll(ajcOptions);
+        StringBuilder sourcepath = new StringBuilder();
+        for (String sourceDirectory : getSourceDirectories()) {
+            if (new File(sourceDirectory).isDirectory()) {
+                if (sourcepath.length() > 0) {
+                    sourcepath.append(File.pathSeparatorChar);
+                }
+                sourcepath.append(sourceDirectory);
+            }
+        }
+
+        List<PackageGroup> changedGroups = new ArrayList<>();
+        List<List<String>> groupArguments = new ArrayList<>();
+        List<String> fingerprints = new ArrayList<>();
+        for (PackageGroup group : groups) {
+            File groupOutputDirectory = new File(outputDirectory, group.directory);
+            List<String> arguments = new ArrayList<>(options);
+            if (sourcepath.length() > 0) {
+                arguments.add("-sourcepath");
+                arguments.add(sourcepath.toString());
+            }
+            arguments.add("-d");
+            arguments.add(groupOutputDirectory.getAbsolutePath());
+            arguments.addAll(group.sources);
+            Set<String> groupSources = new HashSet<>(group.sources);
+            for (String aspect : aspects) {
+                if (!groupSources.contains(aspect)) {
+                    arguments.add(aspect);
+                }
+            }
+            String fingerprint = null;
+            if (incrementalReport) {
+                List<String> inputs = new ArrayList<>(arguments);
+                inputs.addAll(new TreeSet<>(sources));
+                fingerprint = computeFingerprint(inputs, groupOutputDirectory);
+                if (isReportCurrent(getFingerprintFile(group), fingerprint, groupOutputDirectory)) {
+                    continue;
+                }
+            }
+            changedGroups.add(group);
+            groupArguments.add(arguments);
+            fingerprints.add(fingerprint);
+        }
+        if (changedGroups.isEmpty()) {
+            getLog().info("ajdoc report is up to date");
+        } else {
+            URL[] toolsClasspath;
+            try {
+                toolsClasspath = getAjdocClasspath();
+            } catch (IOException e) {
+                throw new MavenReportException("Could not locate ajdoc", e);
+            }
+            compileSources(toolsClasspath, classpath, sources, classesDirectory);
+            generateGroups(toolsClasspath, changedGroups, groupArguments, fingerprints, groups.size());
+        }
+
+        try {
+            writeGroupIndex(groups);
+        } catch (IOException e) {
+            throw new MavenReportException("Could not write the ajdoc index", e);
+        }
+    }
+
+    /**
+     * Compiles all sources of the report without weaving, so each package group resolves the types of the other
+     * groups. Compile errors are left to ajdoc to report for the groups they occur in.
+     *
+     * @param toolsClasspath the class path of the AspectJ tools
+     * @param classpath the class path of the sources
+     * @param sources the sources of all package groups
+     * @param classesDirectory the directory to compile the classes to
+     * @throws MavenReportException if the classes directory cannot be cleaned
+     */
+    private void compileSources(URL[] toolsClasspath, String classpath, Set<String> sources, File classesDirectory)
+            throws MavenReportException {
+        List<String> arguments = new ArrayList<>();
+        arguments.add("-classpath");
+        arguments.add(classpath);
+        if (AjcHelper.isValidComplianceLevel(complianceLevel)) {
+            arguments.add("-source");
+            arguments.add(complianceLevel);
+        }
+        arguments.add("-XterminateAfterCompilation");
+        arguments.add("-proceedOnError");
+        arguments.add("-d");
+        arguments.add(classesDirectory.getAbsolutePath());
+        arguments.addAll(sources);
+        MessageHandler messages = new MessageHandler();
+        try {
+            FileUtils.deleteDirectory(classesDirectory);
+            FileUtils.forceMkdir(classesDirectory);
+            try (IsolatedAjcCompiler compiler = new IsolatedAjcCompiler(toolsClasspath)) {
+                compiler.run(arguments.toArray(new String[0]), messages);
+            }
+        } catch (IOException e) {
+            throw new MavenReportException("Could not compile the sources of the ajdoc report", e);
+        }
+        if (messages.hasAnyMessage(IMessage.ERROR, true)) {
+            getLog().debug("The sources of the ajdoc report do not compile: "
+                    + Arrays.toString(messages.getMessages(IMessage.ERROR, true)));
+        }
+    }
+
+    /**
+     * @return the directory the sources of all package groups are compiled to
+     */
+    private File getGroupClassesDirectory() {
+        return new File(buildDirectory, "ajdoc-groups/classes");
+    }
+
+    /**
+     * Generates the report of the given package groups concurrently.
+     *
+     * @param toolsClasspath the class path of the AspectJ tools
+     * @param groups the package groups to generate
+     * @param groupArguments the ajdoc arguments of each group
+     * @param fingerprints the fingerprint of each group to record, or {@code null}
+     * @param total the number of all package groups
+     * @throws MavenReportException if the report of a group cannot be generated
+     */
+    private void generateGroups(
+            URL[] toolsClasspath,
+            List<PackageGroup> groups,
+            List<List<String>> groupArguments,
+            List<String> fingerprints,
+            int total)
+            throws MavenReportException {
+        int threads;
+        if (reportThreads > 0) {
+            threads = Math.min(reportThreads, groups.size());
+        } else if (reportBatchSize > 0) {
+            threads = 1;
+        } else {
+            threads = Math.min(Runtime.getRuntime().availableProcessors(), groups.size());
+        }
+        getLog().info("Generating ajdoc for " + groups.size() + " of " + total + " package groups, " + threads
+                + " at a time");
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < groups.size(); i++) {
+                final PackageGroup group = groups.get(i);
+                final String[] arguments = groupArguments.get(i).toArray(new String[0]);
+                final String fingerprint = fingerprints.get(i);
+                final File workingDirectory = new File(buildDirectory, "ajdoc-groups/" + group.directory);
+                results.add(executor.submit(() -> {
+                    File fingerprintFile = getFingerprintFile(group);
+                    FileUtils.fileDelete(fingerprintFile.getPath());
+                    // Drop the pages of classes removed since the previous report
+                    FileUtils.deleteDirectory(new File(outputDirectory, group.directory));
+                    FileUtils.forceMkdir(workingDirectory);
+                    boolean succeeded;
+                    try (IsolatedAjcCompiler ajdoc = new IsolatedAjcCompiler(toolsClasspath)) {
+                        succeeded = ajdoc.runAjdoc(workingDirectory, arguments);
+                    }
+                    if (succeeded && fingerprint != null) {
+                        writeFingerprint(fingerprintFile, fingerprint);
+                    }
+                    return succeeded;
+                }));
+            }
+            List<String> failedGroups = new ArrayList<>();
+            for (int i = 0; i < groups.size(); i++) {
+                if (!results.get(i).get()) {
+                    failedGroups.add(groups.get(i).title);
+                }
+            }
+            if (!failedGroups.isEmpty()) {
+                throw new MavenReportException("ajdoc failed for the package groups " + failedGroups);
+            }
+        } catch (ExecutionException e) {
+            throw new MavenReportException("ajdoc failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MavenReportException("Interrupted while generating ajdoc", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Computes the fingerprint of the inputs of an ajdoc run: the arguments, and the content of the sources and the
+     * class path, except the output directories of the project. The source roots of {@code -sourcepath} below the
+     * base directory are not hashed as a whole, only the sources given.
+     *
+     * @param arguments the ajdoc arguments, followed by the sources the run depends on but does not document
+     * @param reportDirectory the output directory of the run
+     * @return the fingerprint
+     * @throws MavenReportException if an input cannot be read
+     */
+    private String computeFingerprint(List<String> arguments, File reportDirectory) throws MavenReportException {
+        List<File> outputs = new ArrayList<>();
+        outputs.add(reportDirectory.getAbsoluteFile());
+        for (String classpathDirectory : getClasspathDirectories()) {
+            outputs.add(new File(classpathDirectory).getAbsoluteFile());
+        }
+        outputs.add(getGroupClassesDirectory().getAbsoluteFile());
+        RelocatablePaths paths = new RelocatablePaths(Collections.singletonMap("basedir", basedir));
+        List<String> inputs = new ArrayList<>(arguments);
+        int sourcepath = inputs.indexOf("-sourcepath");
+        if (sourcepath >= 0 && sourcepath + 1 < inputs.size()) {
+            // Relative paths are not hashed
+            inputs.set(sourcepath + 1, paths.relativize(inputs.get(sourcepath + 1)));
+        }
+        try {
+            return BuildOutputCache.computeKey(inputs, paths, outputs);
+        } catch (IOException e) {
+            throw new MavenReportException("Could not compute the fingerprint of the ajdoc report", e);
+        }
+    }
+
+    /**
+     * @param fingerprintFile the fingerprint recorded by the previous report
+     * @param fingerprint the fingerprint of the current inputs
+     * @param reportDirectory the output directory of the report
+     * @return {@code true} if the previous report of the same inputs is still present
+     */
+    private static boolean isReportCurrent(File fingerprintFile, String fingerprint, File reportDirectory) {
+        if (!fingerprintFile.isFile() || !new File(reportDirectory, "index.html").isFile()) {
+            return false;
+        }
+        try {
+            return fingerprint.equals(
+                    FileUtils.fileRead(fingerprintFile, "UTF-8").trim());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void writeFingerprint(File fingerprintFile, String fingerprint) throws MavenReportException {
+        try {
+            FileUtils.forceMkdir(fingerprintFile.getParentFile());
+            FileUtils.fileWrite(fingerprintFile, "UTF-8", fingerprint);
+        } catch (IOException e) {
+            throw new MavenReportException("Could not write the fingerprint of the ajdoc report", e);
+        }
+    }
+
+    private File getFingerprintFile() {
+        return new File(buildDirectory, "ajdoc-report.fingerprint");
+    }
+
+    private File getFingerprintFile(PackageGroup group) {
+        return new File(buildDirectory, "ajdoc-groups/" + group.directory + ".fingerprint");
+    }
+
+    /**
+     * Assigns the sources to the first package group matching their package.
+     *
+     * @param packages the package of each source
+     * @param patterns the package groups, see {@code packageGroups}
+     * @return the groups containing sources, followed by the group of the sources not matched by any group
+     */
+    static List<PackageGroup> groupSources(Map<String, String> packages, String[] patterns) {
+        List<PackageGroup> groups = new ArrayList<>();
+        for (int i = 0; i < patterns.length; i++) {
+            groups.add(new PackageGroup(patterns[i].trim(), "group-" + (i + 1)));
+        }
+        PackageGroup others = new PackageGroup(
+                patterns.length > 0 ? "Other packages" : "All packages", "group-" + (patterns.length + 1));
+        for (Map.Entry<String, String> source : packages.entrySet()) {
+            PackageGroup matching = others;
+            for (PackageGroup group : groups) {
+                if (group.matches(source.getValue())) {
+                    matching = group;
+                    break;
+                }
+            }
+            matching.sources.add(source.getKey());
+            matching.packages.add(source.getValue());
+        }
+        groups.add(others);
+        groups.removeIf(group -> group.sources.isEmpty());
+        return groups;
+    }
+
+    /**
+     * Splits the package groups with more than the given number of sources into batches of whole packages, in the
+     * order of their names. A package with more sources than the batch size forms a batch of its own.
+     *
+     * @param groups the package groups
+     * @param packages the package of each source
+     * @param batchSize the maximum number of sources of a batch
+     * @return the groups within the batch size and the batches of the other groups
+     */
+    static List<PackageGroup> batchSources(List<PackageGroup> groups, Map<String, String> packages, int batchSize) {
+        List<PackageGroup> batches = new ArrayList<>();
+        for (PackageGroup group : groups) {
+            if (group.sources.size() <= batchSize) {
+                batches.add(group);
+                continue;
+            }
+            Map<String, List<String>> sourcesByPackage = new TreeMap<>();
+            for (String source : group.sources) {
+                sourcesByPackage
+                        .computeIfAbsent(packages.get(source), packageName -> new ArrayList<>())
+                        .add(source);
+            }
+            PackageGroup batch = null;
+            int count = 0;
+            for (Map.Entry<String, List<String>> packageSources : sourcesByPackage.entrySet()) {
+                if (batch == null
+                        || batch.sources.size() + packageSources.getValue().size() > batchSize) {
+                    count++;
+                    batch = new PackageGroup(group.title + " (" + count + ")", group.directory + "-" + count);
+                    batches.add(batch);
+                }
+                batch.packages.add(packageSources.getKey());
+                batch.sources.addAll(packageSources.getValue());
+            }
+        }
+        return batches;
+    }
+
+    /**
+     * @return the class path of ajdoc: the AspectJ tools and, before Java 9, the javadoc tool of the JDK
+     * @throws IOException if the location of the AspectJ tools cannot be determined
+     */
+    private static URL[] getAjdocClasspath() throws IOException {
+        List<URL> classpath = new ArrayList<>();
+        classpath.add(IsolatedAjcCompiler.getAspectjToolsLocation());
+        File toolsJar = new File(System.getProperty("java.home"), "../lib/tools.jar");
+        if (toolsJar.isFile()) {
+            classpath.add(toolsJar.toURI().toURL());
+        }
+        return classpath.toArray(new URL[0]);
+    }
+
+    /**
+     * Writes the index of the report, which links to the packages of the package groups.
+     *
+     * @param groups the package groups
+     * @throws IOException if the index cannot be written
+     */
+    private void writeGroupIndex(List<PackageGroup> groups) throws IOException {
+        String title = escapeHtml(Objects.toString(project.getName(), project.getArtifactId()) + " API");
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n<title>")
+                .append(title)
+                .append("</title>\n</head>\n<body>\n<h1>")
+                .append(title)
+                .append("</h1>\n");
+        for (PackageGroup group : groups) {
+            html.append("<h2><a href=\"")
+                    .append(group.directory)
+                    .append("/index.html\">")
+                    .append(escapeHtml(group.title))
+                    .append("</a></h2>\n<ul>\n");
+            for (String packageName : group.packages) {
+                if (packageName.isEmpty()) {
+                    continue;
+                }
+                html.append("<li><a href=\"")
+                        .append(group.directory)
+                        .append('/')
+                        .append(packageName.replace('.', '/'))
+                        .append("/package-summary.html\">")
+                        .append(escapeHtml(packageName))
+                        .append("</a></li>\n");
+            }
+            html.append("</ul>\n");
+        }
+        html.append("</body>\n</html>\n");
+        FileUtils.forceMkdir(outputDirectory);
+        Files.write(
+                new File(outputDirectory, "index.html").toPath(),
+                html.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String escapeHtml(String text) {
+        return text.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("\"", "&quot;");
     }
 
     /**
@@ -365,6 +873,48 @@ public class AjcReportMojo extends AbstractMavenReport {
         this.pluginArtifacts = pluginArtifacts;
     }
 
+    /**
+     * A group of packages whose report is generated by an ajdoc run of its own.
+     */
+    static final class PackageGroup {
+        private final String title;
+
+        private final String directory;
+
+        private final Set<String> packages = new TreeSet<>();
+
+        private final List<String> sources = new ArrayList<>();
+
+        private PackageGroup(String title, String directory) {
+            this.title = title;
+            this.directory = directory;
+        }
+
+        private boolean matches(String packageName) {
+            for (String pattern : title.split(":")) {
+                pattern = pattern.trim();
+                if (pattern.endsWith("*")
+                        ? packageName.startsWith(pattern.substring(0, pattern.length() - 1))
+                        : packageName.equals(pattern)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        String getDirectory() {
+            return directory;
+        }
+
+        Set<String> getPackages() {
+            return packages;
+        }
+
+        List<String> getSources() {
+            return sources;
+        }
+    }
+
     /**
      * Gets the resource bundle for the report text.
      *
@@ -24,8 +24,15 @@ package org.codehaus.mojo.aspectj;
  * SOFTWARE.
  */
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
@@ -80,6 +87,23 @@ public class AjcTestCompileMojo extends AbstractAjcCompiler {
     @Parameter(defaultValue = "${project.build.directory}/generated-test-sources/aspectj-maven-plugin")
     private File generatedTestSourcesDirectory;
 
+    /**
+     * The file the {@code profile} is written to.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "${project.build.directory}/aspectj-test-profile.json")
+    private File profileFile;
+
+    /**
+     * The file the {@code weaveInfoReport} is written to, as JSON if its name ends with {@code .json}, otherwise as
+     * CSV.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "${project.build.directory}/aspectj-test-weave-info.csv")
+    private File weaveInfoFile;
+
     /**
      * <p>
      * Set the java test source folders to use, specifying the includes and excludes.
@@ -96,6 +120,25 @@ public class AjcTestCompileMojo extends AbstractAjcCompiler {
     @Parameter
     private Scanner[] testSources;
 
+    /**
+     * The directory of the snapshot of the main aspects written by the {@code compile} goal with
+     * {@code snapshotAspects}. If the snapshot is current, it replaces the main classes on the aspectpath when
+     * {@code weaveWithAspectsInMainSourceFolder} is set.
+     *
+     * @since 1.17
+     */
+    @Parameter(defaultValue = "${project.build.directory}/aspectj-main-aspects")
+    private File aspectSnapshotDirectory;
+
+    /**
+     * The ABI of the main classes, determined by the up-to-date check of an {@code incremental} build.
+     */
+    private AbiManifest mainAbi;
+
+    private boolean mainAbiChecked;
+
+    private Set<String> sourcesAffectedByMainClasses;
+
     @Override
     public void execute() throws MojoExecutionException {
         if (isSkipTestCompile()) {
@@ -141,12 +184,147 @@ public class AjcTestCompileMojo extends AbstractAjcCompiler {
         String additionalPath = null;
         if (weaveWithAspectsInMainSourceFolder) {
             additionalPath = project.getBuild().getOutputDirectory();
+            if (aspectSnapshotDirectory != null) {
+                AspectSnapshot snapshot = new AspectSnapshot(aspectSnapshotDirectory);
+                if (snapshot.isCurrent(new File(additionalPath, argumentFileName))) {
+                    try {
+                        additionalPath = snapshot.isEmpty() ? null : aspectSnapshotDirectory.getAbsolutePath();
+                        getLog().debug("Using the snapshot of the main aspects in " + aspectSnapshotDirectory);
+                    } catch (IOException e) {
+                        getLog().warn("Could not read the main aspect snapshot in " + aspectSnapshotDirectory, e);
+                    }
+                }
+            }
         }
         return additionalPath;
     }
 
+    /**
+     * With {@code incremental}, determines the test sources affected by changes of the main classes: the sources of the
+     * test classes referring to a main type whose ABI changed, or to one of its subtypes. Changes of method bodies do
+     * not affect any test source, and a changed main aspect or constant affects all of them, as constants are inlined
+     * into the test classes.
+     */
+    @Override
+    protected Set<String> getSourcesAffectedByClasspath(File outDir) throws MojoExecutionException {
+        if (!incremental) {
+            return Collections.emptySet();
+        }
+        if (!mainAbiChecked) {
+            mainAbiChecked = true;
+            File mainAbiFile = getMainAbiFile(outDir);
+            try {
+                AbiManifest previousMainAbi = AbiManifest.read(mainAbiFile);
+                mainAbi = AbiManifest.create(new File(project.getBuild().getOutputDirectory()), previousMainAbi);
+                if (previousMainAbi == null) {
+                    getLog().debug("No ABI of the main classes recorded in " + mainAbiFile);
+                    return null;
+                }
+                if (previousMainAbi.hasChangedConstants(mainAbi)) {
+                    getLog().debug("A constant of the main classes has changed");
+                    return null;
+                }
+                Set<String> changedTypes = previousMainAbi.getChangedTypes(mainAbi);
+                for (String type : changedTypes) {
+                    if (previousMainAbi.isAspect(type) || mainAbi.isAspect(type)) {
+                        getLog().debug("Main aspect " + type + " has changed");
+                        return null;
+                    }
+                }
+                sourcesAffectedByMainClasses = changedTypes.isEmpty()
+                        ? Collections.<String>emptySet()
+                        : getSourcesReferringTo(outDir, mainAbi.addSubtypes(changedTypes));
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not determine the changes of the main classes", e);
+            }
+        }
+        return sourcesAffectedByMainClasses;
+    }
+
+    /**
+     * @param outDir the output directory of the previous build
+     * @param types the internal names of the changed main types
+     * @return the test sources whose classes refer to one of the types, or {@code null} if the source of such a class
+     *         cannot be determined
+     * @throws IOException if a test class cannot be read
+     */
+    private Set<String> getSourcesReferringTo(File outDir, Set<String> types) throws IOException {
+        Set<String> sources = new LinkedHashSet<>();
+        Path root = outDir.getAbsoluteFile().toPath();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (!path.getFileName().toString().endsWith(".class") || !Files.isRegularFile(path)) {
+                    continue;
+                }
+                ClassFileSummary summary = ClassFileSummary.read(Files.readAllBytes(path));
+                if (Collections.disjoint(summary.getReferencedTypes(), types)) {
+                    continue;
+                }
+                String source = findSource(summary);
+                if (source == null) {
+                    getLog().debug("Cannot determine the source of test class " + summary.getName());
+                    return null;
+                }
+                sources.add(source);
+            }
+        }
+        getLog().debug("Test sources affected by the changed main types " + types + ": " + sources);
+        return sources;
+    }
+
+    /**
+     * @param summary a test class
+     * @return the source the class was compiled from, or {@code null} if none of the sources of this build matches
+     */
+    private String findSource(ClassFileSummary summary) {
+        if (summary.getSourceFile() == null) {
+            return null;
+        }
+        int packageEnd = summary.getName().lastIndexOf('/');
+        String relativePath = "/" + summary.getName().substring(0, packageEnd + 1) + summary.getSourceFile();
+        for (String source : resolvedIncludes) {
+            if (source.replace(File.separatorChar, '/').endsWith(relativePath)) {
+                return source;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records the ABI of the main classes this build was compiled against, for the next {@code incremental} build.
+     */
+    @Override
+    protected void outputUpdated() throws MojoExecutionException {
+        if (incremental) {
+            File mainAbiFile = getMainAbiFile(getOutputDirectory());
+            try {
+                if (mainAbi == null) {
+                    mainAbi = AbiManifest.create(
+                            new File(project.getBuild().getOutputDirectory()), AbiManifest.read(mainAbiFile));
+                }
+                mainAbi.write(mainAbiFile);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not record the ABI of the main classes in " + mainAbiFile, e);
+            }
+        }
+    }
+
+    private File getMainAbiFile(File outDir) {
+        return new File(outDir, argumentFileName + ".main-abi");
+    }
+
     private boolean isSkipTestCompile() {
         String skipTestCompile = System.getProperty(MAVEN_TEST_SKIP);
         return Boolean.parseBoolean(skipTestCompile);
     }
+
+    @Override
+    protected File getProfileFile() {
+        return profileFile;
+    }
+
+    @Override
+    protected File getWeaveInfoFile() {
+        return weaveInfoFile;
+    }
 }
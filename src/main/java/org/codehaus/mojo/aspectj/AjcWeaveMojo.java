@@ -0,0 +1,286 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.aspectj.bridge.IMessage;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Weaves the classes compiled by another plugin, e.g. the maven-compiler-plugin, in place, with the aspects of the
+ * {@code aspectLibraries}. The sources are not compiled again.
+ * <p>
+ * The classes are copied to a work directory before they are woven, so the unwoven classes are available to weave them
+ * again. Only the classes which changed since the previous execution, i.e. which were compiled again, are woven,
+ * unless the aspects or the weaving arguments changed, in which case all classes are woven from their unwoven copies.
+ * <p>
+ * <b>Caveat:</b> a class is only woven again if it was compiled again. If the join points of a class depend on other
+ * classes, e.g. a pointcut matching the subtypes of a changed type, use {@code forceWeave} or a clean build.
+ *
+ * @since 1.17
+ */
+@Mojo(
+        name = "weave",
+        defaultPhase = LifecyclePhase.PROCESS_CLASSES,
+        requiresDependencyResolution = ResolutionScope.COMPILE,
+        threadSafe = true)
+public class AjcWeaveMojo extends AbstractAjcMojo {
+
+    /**
+     * The directory of the classes to weave in place.
+     */
+    @Parameter(required = true, defaultValue = "${project.build.outputDirectory}")
+    private File classesDirectory;
+
+    /**
+     * The directory holding the unwoven copies of the classes and the state of the previous weaving.
+     */
+    @Parameter(required = true, defaultValue = "${project.build.directory}/aspectj-weave")
+    private File workDirectory;
+
+    /**
+     * Weaves all classes, regardless of whether they changed since the previous execution.
+     */
+    @Parameter(defaultValue = "false", property = "aspectj.forceWeave")
+    private boolean forceWeave;
+
+    /**
+     * Emit messages about weaving. Corresponds to ajc {@code -showWeaveInfo}.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean showWeaveInfo;
+
+    /**
+     * Set default level for messages about potential programming mistakes in crosscutting code. Corresponds to ajc
+     * {@code -Xlint:level}, with level {@code ignore}, {@code warning} or {@code error}.
+     */
+    @Parameter
+    private String Xlint;
+
+    /**
+     * Additional ajc arguments, e.g. {@code -Xset} options.
+     */
+    @Parameter
+    private List<String> additionalCompilerArgs = new ArrayList<>();
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (isSkip()) {
+            getLog().info("Skipping execution because of 'skip' option");
+            return;
+        }
+        if (!classesDirectory.isDirectory()) {
+            getLog().info("No classes to weave in " + classesDirectory);
+            return;
+        }
+
+        File unwovenDirectory = new File(workDirectory, "unwoven");
+        File changedDirectory = new File(workDirectory, "changed");
+        File argumentsFile = new File(workDirectory, "weave.lst");
+        File wovenManifestFile = new File(workDirectory, "woven.manifest");
+        File aspectpathManifestFile = new File(workDirectory, "aspectpath.manifest");
+        try {
+            List<String> aspectpath = getAspectpath();
+            List<String> options = getOptions(aspectpath);
+
+            // Classes differing from the woven ones recorded by the previous execution were compiled again
+            BuildManifest previousWoven = BuildManifest.read(wovenManifestFile);
+            BuildManifest current = BuildManifest.create(getClassFiles(classesDirectory), previousWoven);
+            Set<String> compiled = previousWoven == null ? current.getFiles() : previousWoven.getChangedFiles(current);
+            if (previousWoven != null) {
+                for (String removed : previousWoven.getFiles()) {
+                    if (!current.getFiles().contains(removed)) {
+                        FileUtils.fileDelete(
+                                getUnwovenFile(unwovenDirectory, removed).getPath());
+                    }
+                }
+            }
+            for (String file : compiled) {
+                copy(new File(file), getUnwovenFile(unwovenDirectory, file));
+            }
+
+            BuildManifest previousAspectpath = BuildManifest.read(aspectpathManifestFile);
+            BuildManifest currentAspectpath = BuildManifest.create(aspectpath, previousAspectpath);
+            boolean weaveAll = forceWeave
+                    || previousWoven == null
+                    || !argumentsFile.isFile()
+                    || !options.equals(AjcHelper.readBuildConfigFile(argumentsFile.getName(), workDirectory))
+                    || previousAspectpath == null
+                    || !previousAspectpath.getChangedFiles(currentAspectpath).isEmpty()
+                    || !currentAspectpath.getFiles().equals(previousAspectpath.getFiles());
+
+            List<String> arguments = new ArrayList<>(options);
+            arguments.add("-inpath");
+            if (weaveAll) {
+                getLog().info("Weaving all classes of " + classesDirectory);
+                arguments.add(unwovenDirectory.getAbsolutePath());
+            } else if (compiled.isEmpty()) {
+                getLog().info("No changed classes to weave in " + classesDirectory);
+                return;
+            } else {
+                getLog().info("Weaving " + compiled.size() + " changed classes of " + classesDirectory);
+                FileUtils.deleteDirectory(changedDirectory);
+                for (String file : compiled) {
+                    copy(new File(file), getUnwovenFile(changedDirectory, file));
+                }
+                arguments.add(changedDirectory.getAbsolutePath());
+            }
+
+            // Force a complete weaving next time if this one fails
+            FileUtils.fileDelete(argumentsFile.getPath());
+            IMessage[] errors = weave(arguments);
+            FileUtils.deleteDirectory(changedDirectory);
+            if (errors.length > 0) {
+                current.write(wovenManifestFile);
+                throw CompilationFailedException.create(errors);
+            }
+
+            BuildManifest.create(getClassFiles(classesDirectory), current).write(wovenManifestFile);
+            currentAspectpath.write(aspectpathManifestFile);
+            AjcHelper.writeBuildConfigToFile(options, argumentsFile.getName(), workDirectory);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not weave the classes of " + classesDirectory, e);
+        }
+    }
+
+    /**
+     * @return the files of the aspect libraries
+     * @throws MojoExecutionException if an aspect library is not a dependency of the project
+     */
+    private List<String> getAspectpath() throws MojoExecutionException {
+        List<String> aspectpath = new ArrayList<>();
+        if (aspectLibraries != null) {
+            for (Module module : aspectLibraries) {
+                aspectpath.add(
+                        resolveModule(module, "an aspect library").getFile().getAbsolutePath());
+            }
+        }
+        return aspectpath;
+    }
+
+    /**
+     * @param aspectpath the files of the aspect libraries
+     * @return the ajc arguments, except the inpath
+     */
+    private List<String> getOptions(List<String> aspectpath) {
+        List<String> options = new ArrayList<>();
+        options.add("-classpath");
+        options.add(AjcHelper.createClassPath(
+                project, null, Collections.singletonList(classesDirectory.getAbsolutePath())));
+        if (!aspectpath.isEmpty()) {
+            options.add("-aspectpath");
+            options.add(String.join(File.pathSeparator, aspectpath));
+        }
+        if (xmlConfigured != null) {
+            options.add("-xmlConfigured");
+            options.add(xmlConfigured.getAbsolutePath());
+        }
+        if (showWeaveInfo) {
+            options.add("-showWeaveInfo");
+        }
+        if (Xlint != null) {
+            options.add("-Xlint:" + Xlint);
+        }
+        options.add("-d");
+        options.add(classesDirectory.getAbsolutePath());
+        if (additionalCompilerArgs != null) {
+            options.addAll(additionalCompilerArgs);
+        }
+        return options;
+    }
+
+    /**
+     * Runs an isolated AspectJ compiler, so concurrent executions do not share its static state.
+     *
+     * @param arguments the ajc arguments
+     * @return the error messages
+     * @throws IOException if the compiler cannot be loaded
+     */
+    private IMessage[] weave(List<String> arguments) throws IOException {
+        if (getLog().isDebugEnabled()) {
+            getLog().debug("Running : ajc " + String.join(" ", arguments));
+        }
+        MavenMessageHandler messageHandler = new MavenMessageHandler(getLog());
+        try (IsolatedAjcCompiler compiler = new IsolatedAjcCompiler()) {
+            compiler.run(arguments.toArray(new String[0]), messageHandler);
+        }
+        return messageHandler.getMessages(IMessage.ERROR, true);
+    }
+
+    /**
+     * @param directory the classes directory
+     * @return the paths of all class files below the directory
+     * @throws IOException if the directory cannot be read
+     */
+    private static List<String> getClassFiles(File directory) throws IOException {
+        List<String> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(directory.getAbsoluteFile().toPath())) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (path.getFileName().toString().endsWith(".class") && Files.isRegularFile(path)) {
+                    files.add(path.toString());
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * @param directory the directory to copy a class file to
+     * @param file a class file in the classes directory
+     * @return the path of the class file in the given directory
+     */
+    private File getUnwovenFile(File directory, String file) {
+        return new File(
+                directory,
+                classesDirectory
+                        .getAbsoluteFile()
+                        .toPath()
+                        .relativize(new File(file).toPath())
+                        .toString());
+    }
+
+    private static void copy(File source, File target) throws IOException {
+        FileUtils.forceMkdir(target.getParentFile());
+        Files.copy(
+                source.toPath(),
+                target.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.COPY_ATTRIBUTES);
+    }
+}
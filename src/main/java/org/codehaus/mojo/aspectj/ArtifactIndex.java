@@ -0,0 +1,94 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.maven.artifact.Artifact;
+
+/**
+ * Indexes the dependencies of a project by groupId, artifactId, classifier and type, so the {@link Module}s of a
+ * plugin configuration are resolved by a single lookup each instead of a scan of all dependencies.
+ *
+ * @since 1.17
+ */
+public final class ArtifactIndex {
+
+    private final Map<String, Artifact> artifacts = new HashMap<>();
+
+    private final Map<String, List<Artifact>> artifactsById = new HashMap<>();
+
+    /**
+     * @param artifacts the dependencies of the project
+     */
+    public ArtifactIndex(Collection<Artifact> artifacts) {
+        for (Artifact artifact : artifacts) {
+            this.artifacts.putIfAbsent(
+                    getKey(
+                            artifact.getGroupId(),
+                            artifact.getArtifactId(),
+                            artifact.getClassifier(),
+                            artifact.getType()),
+                    artifact);
+            artifactsById
+                    .computeIfAbsent(artifact.getArtifactId(), id -> new ArrayList<>())
+                    .add(artifact);
+        }
+    }
+
+    /**
+     * Finds the dependency referenced by a module. A module without type references a dependency of type {@code jar}.
+     *
+     * @param module the module
+     * @return the dependency, or {@code null} if the module is not a dependency of the project
+     */
+    public Artifact get(Module module) {
+        return artifacts.get(getKey(
+                module.getGroupId(),
+                module.getArtifactId(),
+                module.getClassifier(),
+                Objects.toString(module.getType(), "jar")));
+    }
+
+    /**
+     * Finds the dependencies a module not found was probably meant to reference, i.e. those with the same artifactId
+     * but a different groupId, classifier or type.
+     *
+     * @param module the module
+     * @return the similar dependencies, possibly empty
+     */
+    public List<Artifact> getNearMisses(Module module) {
+        List<Artifact> nearMisses = artifactsById.get(module.getArtifactId());
+        return nearMisses == null ? new ArrayList<>() : new ArrayList<>(nearMisses);
+    }
+
+    private static String getKey(String groupId, String artifactId, String classifier, String type) {
+        return groupId + ':' + artifactId + ':' + Objects.toString(classifier, "") + ':' + Objects.toString(type, "");
+    }
+}
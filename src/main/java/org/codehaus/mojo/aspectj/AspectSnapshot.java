@@ -0,0 +1,152 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * A copy of the aspects among the classes of the main compilation, which the test compilation puts on its aspectpath
+ * instead of all main classes. The weaver then only loads the aspects eagerly, and resolves the other main classes
+ * from the classpath as far as the weaving needs them.
+ * <p>
+ * The snapshot holds the class files of the aspects and their nested classes, and the list of these files, which is
+ * written last, so an interrupted snapshot is not current.
+ *
+ * @since 1.17
+ */
+public class AspectSnapshot {
+
+    private static final String INDEX_FILE_NAME = "aspects.lst";
+
+    private final File directory;
+
+    /**
+     * @param directory the directory of the snapshot
+     */
+    public AspectSnapshot(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return the directory of the snapshot
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Replaces the snapshot by the aspects of the given classes.
+     *
+     * @param classesDirectory the output directory of the main compilation
+     * @return the class files of the snapshot, relative to its directory
+     * @throws IOException if the classes cannot be read or the snapshot cannot be written
+     */
+    public List<String> write(File classesDirectory) throws IOException {
+        FileUtils.deleteDirectory(directory);
+        List<String> classFiles = new ArrayList<>();
+        Path root = classesDirectory.getAbsoluteFile().toPath();
+        if (Files.isDirectory(root)) {
+            try (Stream<Path> paths = Files.walk(root)) {
+                for (Path path : (Iterable<Path>) paths::iterator) {
+                    if (path.getFileName().toString().endsWith(".class") && Files.isRegularFile(path)) {
+                        classFiles.add(root.relativize(path).toString().replace(File.separatorChar, '/'));
+                    }
+                }
+            }
+        }
+
+        List<String> aspects;
+        try {
+            aspects = classFiles.parallelStream()
+                    .filter(classFile -> isAspect(root.resolve(classFile)))
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        // Nested classes of an aspect, e.g. its closures or mixins, are part of it
+        Set<String> snapshot = new TreeSet<>(aspects);
+        for (String aspect : aspects) {
+            String prefix = aspect.substring(0, aspect.length() - ".class".length()) + '$';
+            for (String classFile : classFiles) {
+                if (classFile.startsWith(prefix)) {
+                    snapshot.add(classFile);
+                }
+            }
+        }
+
+        for (String classFile : snapshot) {
+            File target = new File(directory, classFile);
+            FileUtils.forceMkdir(target.getParentFile());
+            Files.copy(root.resolve(classFile), target.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+        }
+        List<String> files = new ArrayList<>(snapshot);
+        FileUtils.forceMkdir(directory);
+        Files.write(new File(directory, INDEX_FILE_NAME).toPath(), files);
+        return files;
+    }
+
+    /**
+     * Determines whether the snapshot was written after the given file of the main compilation, i.e. whether it holds
+     * the aspects of its latest output.
+     *
+     * @param buildFile a file the main compilation writes before it compiles, i.e. its arguments file
+     * @return {@code true} if the snapshot is current
+     */
+    public boolean isCurrent(File buildFile) {
+        File index = new File(directory, INDEX_FILE_NAME);
+        return index.isFile() && buildFile.isFile() && index.lastModified() >= buildFile.lastModified();
+    }
+
+    /**
+     * @return {@code true} if the snapshot does not contain any aspect
+     * @throws IOException if the snapshot cannot be read
+     */
+    public boolean isEmpty() throws IOException {
+        File index = new File(directory, INDEX_FILE_NAME);
+        return !index.isFile() || Files.readAllLines(index.toPath()).isEmpty();
+    }
+
+    private static boolean isAspect(Path classFile) {
+        try (InputStream in = Files.newInputStream(classFile)) {
+            return InpathPartitioner.isAspect(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + classFile, e);
+        }
+    }
+}
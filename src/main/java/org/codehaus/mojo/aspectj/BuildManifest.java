@@ -0,0 +1,260 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Records size and content checksum of the input files of an AJC build, so the next build can detect changed inputs
+ * by their content instead of their modification time. A checkout, a restore from a cache or a touch therefore does
+ * not make a file look changed.
+ * <p>
+ * The checksum of a file is only computed if its size or modification time differ from the previous manifest, and
+ * the checksums are computed in parallel.
+ *
+ * @since 1.17
+ */
+public class BuildManifest {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Map<String, Entry> entries;
+
+    private BuildManifest(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Creates the manifest of the given files, reusing the checksums of the previous manifest for files whose size
+     * and modification time are unchanged.
+     *
+     * @param files the files to record
+     * @param previous the manifest of the previous build, or {@code null}
+     * @return the manifest of the given files
+     * @throws IOException if a file cannot be read
+     */
+    public static BuildManifest create(Collection<String> files, final BuildManifest previous) throws IOException {
+        final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        try {
+            files.parallelStream().forEach(path -> {
+                File file = new File(path);
+                if (!file.isFile()) {
+                    return;
+                }
+                long size = file.length();
+                long lastModified = file.lastModified();
+                Entry previousEntry = previous == null ? null : previous.entries.get(path);
+                if (previousEntry != null && previousEntry.size == size && previousEntry.lastModified == lastModified) {
+                    entries.put(path, previousEntry);
+                } else {
+                    try {
+                        entries.put(path, new Entry(size, lastModified, checksum(file)));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return new BuildManifest(new TreeMap<>(entries));
+    }
+
+    /**
+     * Reads a manifest written by {@link #write(File)}.
+     *
+     * @param file the manifest file
+     * @return the manifest, or {@code null} if the file does not exist
+     * @throws IOException if the file cannot be read
+     */
+    public static BuildManifest read(File file) throws IOException {
+        return read(file, null);
+    }
+
+    /**
+     * Reads a manifest written by {@link #write(File, RelocatablePaths)}.
+     *
+     * @param file the manifest file
+     * @param paths resolves the relative paths of the manifest, or {@code null} if the paths are absolute
+     * @return the manifest, or {@code null} if the file does not exist
+     * @throws IOException if the file cannot be read
+     */
+    public static BuildManifest read(File file, RelocatablePaths paths) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        Map<String, Entry> entries = new TreeMap<>();
+        try (BufferedReader reader =
+                new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // <checksum> <size> <lastModified> <path>
+                String[] fields = line.split(" ", 4);
+                if (fields.length == 4) {
+                    String path = paths == null ? fields[3] : paths.resolve(fields[3]);
+                    entries.put(path, new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[0]));
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupt build manifest " + file, e);
+        }
+        return new BuildManifest(entries);
+    }
+
+    /**
+     * Writes this manifest.
+     *
+     * @param file the manifest file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(File file) throws IOException {
+        write(file, null);
+    }
+
+    /**
+     * Writes this manifest, with paths relative to the given roots, so the manifest stays valid if the files are moved
+     * along with the roots.
+     *
+     * @param file the manifest file
+     * @param paths relativizes the paths of the manifest, or {@code null} to write absolute paths
+     * @throws IOException if the file cannot be written
+     */
+    public void write(File file, RelocatablePaths paths) throws IOException {
+        FileUtils.forceMkdir(file.getParentFile());
+        try (BufferedWriter writer =
+                new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                Entry value = entry.getValue();
+                String path = paths == null ? entry.getKey() : paths.relativize(entry.getKey());
+                writer.write(value.checksum + " " + value.size + " " + value.lastModified + " " + path);
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * @return the paths of all files recorded in this manifest
+     */
+    public Set<String> getFiles() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * Determines the files of the given manifest which are not recorded in this manifest, or whose size or content
+     * differ.
+     *
+     * @param current the manifest of the current build
+     * @return the changed or added files, in the order of the given manifest
+     */
+    public Set<String> getChangedFiles(BuildManifest current) {
+        Set<String> changed = new LinkedHashSet<>();
+        for (Map.Entry<String, Entry> entry : current.entries.entrySet()) {
+            Entry previousEntry = entries.get(entry.getKey());
+            if (previousEntry == null || !previousEntry.hasSameContent(entry.getValue())) {
+                changed.add(entry.getKey());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Restores the modification time the files had in the previous manifest if their content did not change, so
+     * rewriting a file with the same content does not make it look changed to later build steps.
+     *
+     * @param previous the manifest of the files before they were rewritten
+     * @return the files whose modification time was restored
+     * @throws IOException if a modification time cannot be set
+     * @since 1.17
+     */
+    public Set<String> restoreUnchangedFiles(BuildManifest previous) throws IOException {
+        Set<String> restored = new LinkedHashSet<>();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Entry previousEntry = previous.entries.get(entry.getKey());
+            if (previousEntry != null
+                    && previousEntry.lastModified != entry.getValue().lastModified
+                    && previousEntry.hasSameContent(entry.getValue())) {
+                Files.setLastModifiedTime(Paths.get(entry.getKey()), FileTime.fromMillis(previousEntry.lastModified));
+                entry.setValue(previousEntry);
+                restored.add(entry.getKey());
+            }
+        }
+        return restored;
+    }
+
+    private static String checksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * Size, modification time and checksum of a single file.
+     */
+    private static final class Entry {
+        private final long size;
+
+        private final long lastModified;
+
+        private final String checksum;
+
+        private Entry(long size, long lastModified, String checksum) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.checksum = checksum;
+        }
+
+        private boolean hasSameContent(Entry other) {
+            return size == other.size && checksum.equals(other.checksum);
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.aspectj.bridge.Version;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * A content addressed cache of the output of the AspectJ compiler. The key of an output is computed from the compiler
+ * arguments and the content of all files and directories they refer to, e.g. sources, aspect libraries, classes to
+ * weave and classpath, as well as the AspectJ version; the paths themselves only contribute relative to the roots of
+ * {@link RelocatablePaths}, so the same project built in another directory or on another machine has the same key.
+ * <p>
+ * The outputs are stored as zip files named by their key, either in a directory, e.g. on a shared network mount, or
+ * on an HTTP server supporting {@code GET} and {@code PUT}.
+ *
+ * @since 1.17
+ */
+public abstract class BuildOutputCache {
+
+    private static final Pattern PATH_SEPARATOR = Pattern.compile(Pattern.quote(File.pathSeparator));
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Maximum number of file hashes kept, the least recently used are dropped first.
+     */
+    private static final int MAX_FILE_HASHES = 65536;
+
+    /**
+     * Content hashes of files by their path, reused as long as size and modification time are unchanged.
+     */
+    private static final Map<String, FileHash> FILE_HASHES =
+            Collections.synchronizedMap(new LinkedHashMap<String, FileHash>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, FileHash> eldest) {
+                    return size() > MAX_FILE_HASHES;
+                }
+            });
+
+    /**
+     * Creates the cache stored at the given location.
+     *
+     * @param location a directory, or an {@code http} or {@code https} URL
+     * @return the cache
+     * @throws IOException if the location is not valid
+     */
+    public static BuildOutputCache create(String location) throws IOException {
+        if (location.startsWith("http://") || location.startsWith("https://")) {
+            return new HttpCache(new URL(location.endsWith("/") ? location : location + "/"));
+        }
+        return new DirectoryCache(new File(location));
+    }
+
+    /**
+     * Computes the key of the output of the given compiler arguments.
+     *
+     * @param arguments the compiler arguments
+     * @param paths relativizes the paths of the arguments
+     * @param outputs the directories written by the compiler, whose content, including that of their subdirectories, is
+     * no input
+     * @return the hexadecimal SHA-256 key
+     * @throws IOException if an input cannot be read
+     */
+    public static String computeKey(List<String> arguments, RelocatablePaths paths, Collection<File> outputs)
+            throws IOException {
+        MessageDigest digest = newDigest();
+        update(digest, "ajc " + Version.getText() + " " + Version.getTimeText());
+        for (String argument : arguments) {
+            update(digest, paths.relativize(argument));
+            for (String element : PATH_SEPARATOR.split(argument)) {
+                File file = new File(element);
+                if (element.isEmpty() || !file.isAbsolute() || isOutput(file, outputs)) {
+                    continue;
+                }
+                if (file.isFile()) {
+                    update(digest, hash(file));
+                } else if (file.isDirectory()) {
+                    for (Map.Entry<String, File> entry : listFiles(file).entrySet()) {
+                        update(digest, entry.getKey());
+                        update(digest, hash(entry.getValue()));
+                    }
+                }
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static boolean isOutput(File file, Collection<File> outputs) {
+        for (File output : outputs) {
+            if (file.toPath().startsWith(output.getAbsoluteFile().toPath())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Restores the output stored with the given key.
+     *
+     * @param key the key of the output
+     * @param outputDirectory the directory to restore the output to
+     * @return {@code true} if the output was found and restored, {@code false} if it is not cached
+     * @throws IOException if the cached output cannot be read
+     */
+    public boolean restore(String key, File outputDirectory) throws IOException {
+        InputStream in = open(key + ".zip");
+        if (in == null) {
+            return false;
+        }
+        File root = outputDirectory.getCanonicalFile();
+        try (ZipInputStream zip = new ZipInputStream(in)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                File file = new File(root, entry.getName()).getCanonicalFile();
+                if (!file.toPath().startsWith(root.toPath())) {
+                    throw new IOException("Invalid entry " + entry.getName() + " in cached output " + key);
+                }
+                if (entry.isDirectory()) {
+                    FileUtils.forceMkdir(file);
+                } else {
+                    FileUtils.forceMkdir(file.getParentFile());
+                    Files.copy(zip, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stores the given files of an output directory with the given key.
+     *
+     * @param key the key of the output
+     * @param outputDirectory the output directory
+     * @param files the paths of the files to store, relative to the output directory
+     * @throws IOException if the output cannot be stored
+     */
+    public void store(String key, File outputDirectory, Collection<String> files) throws IOException {
+        File zipFile = File.createTempFile("aspectj-output", ".zip");
+        try {
+            try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(zipFile))) {
+                for (String path : files) {
+                    zip.putNextEntry(new ZipEntry(path.replace(File.separatorChar, '/')));
+                    Files.copy(new File(outputDirectory, path).toPath(), zip);
+                    zip.closeEntry();
+                }
+            }
+            put(key + ".zip", zipFile);
+        } finally {
+            FileUtils.forceDelete(zipFile);
+        }
+    }
+
+    /**
+     * Records size and modification time of the files of a directory, to find the files written by the compiler.
+     *
+     * @param directory the directory
+     * @return the size and modification time of the files by their relative paths
+     */
+    public static Map<String, List<Long>> snapshot(File directory) {
+        Map<String, List<Long>> snapshot = new TreeMap<>();
+        for (Map.Entry<String, File> entry : listFiles(directory).entrySet()) {
+            File file = entry.getValue();
+            snapshot.put(entry.getKey(), Arrays.asList(file.length(), file.lastModified()));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Determines the files which were added or changed since a snapshot.
+     *
+     * @param directory the directory
+     * @param before the snapshot taken before
+     * @return the relative paths of the added or changed files
+     */
+    public static List<String> getChangedFiles(File directory, Map<String, List<Long>> before) {
+        List<String> changed = new ArrayList<>();
+        for (Map.Entry<String, List<Long>> entry : snapshot(directory).entrySet()) {
+            if (!entry.getValue().equals(before.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @param name the name of a stored file
+     * @return the content of the file, or {@code null} if it does not exist
+     * @throws IOException if the file cannot be read
+     */
+    protected abstract InputStream open(String name) throws IOException;
+
+    /**
+     * Stores a file, replacing an existing file of the same name.
+     *
+     * @param name the name of the stored file
+     * @param file the file to store
+     * @throws IOException if the file cannot be stored
+     */
+    protected abstract void put(String name, File file) throws IOException;
+
+    private static Map<String, File> listFiles(File directory) {
+        Map<String, File> files = new TreeMap<>();
+        listFiles(directory, "", files);
+        return files;
+    }
+
+    private static void listFiles(File directory, String prefix, Map<String, File> files) {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            String name = prefix + child.getName();
+            if (child.isDirectory()) {
+                listFiles(child, name + "/", files);
+            } else {
+                files.put(name, child);
+            }
+        }
+    }
+
+    private static String hash(File file) throws IOException {
+        long size = file.length();
+        long lastModified = file.lastModified();
+        FileHash cached = FILE_HASHES.get(file.getAbsolutePath());
+        if (cached != null && cached.size == size && cached.lastModified == lastModified) {
+            return cached.hash;
+        }
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        String hash = toHex(digest.digest());
+        FILE_HASHES.put(file.getAbsolutePath(), new FileHash(size, lastModified, hash));
+        return hash;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Size, modification time and content hash of a file.
+     */
+    private static final class FileHash {
+        private final long size;
+
+        private final long lastModified;
+
+        private final String hash;
+
+        private FileHash(long size, long lastModified, String hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Stores the outputs in a directory.
+     */
+    private static final class DirectoryCache extends BuildOutputCache {
+        private final File directory;
+
+        private DirectoryCache(File directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected InputStream open(String name) throws IOException {
+            File file = new File(directory, name);
+            return file.isFile() ? new FileInputStream(file) : null;
+        }
+
+        @Override
+        protected void put(String name, File file) throws IOException {
+            FileUtils.forceMkdir(directory);
+            // Copy next to the target first, so concurrent builds never read a partially written output
+            File temporary = File.createTempFile(name, ".tmp", directory);
+            try {
+                Files.copy(file.toPath(), temporary.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temporary.toPath(), new File(directory, name).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary.toPath());
+            }
+        }
+    }
+
+    /**
+     * Stores the outputs on an HTTP server.
+     */
+    private static final class HttpCache extends BuildOutputCache {
+        private final URL url;
+
+        private HttpCache(URL url) {
+            this.url = url;
+        }
+
+        @Override
+        protected InputStream open(String name) throws IOException {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url, name).openConnection();
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                connection.disconnect();
+                return null;
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                connection.disconnect();
+                throw new IOException("Cannot read " + name + " from build cache " + url + ": HTTP status " + status);
+            }
+            return connection.getInputStream();
+        }
+
+        @Override
+        protected void put(String name, File file) throws IOException {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url, name).openConnection();
+            try {
+                connection.setRequestMethod("PUT");
+                connection.setDoOutput(true);
+                connection.setFixedLengthStreamingMode(file.length());
+                connection.setRequestProperty("Content-Type", "application/zip");
+                try (OutputStream out = connection.getOutputStream()) {
+                    Files.copy(file.toPath(), out);
+                }
+                int status = connection.getResponseCode();
+                if (status / 100 != 2) {
+                    throw new IOException(
+                            "Cannot store " + name + " in build cache " + url + ": HTTP status " + status);
+                }
+            } finally {
+                connection.disconnect();
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the header and the constant pool of a class file, see chapter 4.4 of the Java Virtual Machine Specification,
+ * leaving the input positioned at the access flags of the class.
+ *
+ * @since 1.17
+ */
+final class ClassFileReader {
+
+    static final int CONSTANT_UTF8 = 1;
+
+    static final int CONSTANT_CLASS = 7;
+
+    static final int CONSTANT_STRING = 8;
+
+    /**
+     * Type names in descriptors and signatures, e.g. {@code Ljava/lang/String;} or {@code Ljava/util/List<}.
+     */
+    private static final Pattern DESCRIPTOR_TYPE = Pattern.compile("L([\\w/$]+)[;<]");
+
+    private static final int CLASS_MAGIC = 0xCAFEBABE;
+
+    private final DataInputStream in;
+
+    private final boolean classFile;
+
+    private String[] utf8;
+
+    private int[] tags;
+
+    private int[] references;
+
+    private Object[] values;
+
+    /**
+     * Reads the header and the constant pool.
+     *
+     * @param in the content of the class file
+     * @throws IOException if the constant pool cannot be read
+     */
+    ClassFileReader(DataInputStream in) throws IOException {
+        this.in = in;
+        this.classFile = in.readInt() == CLASS_MAGIC;
+        if (classFile) {
+            in.readUnsignedShort();
+            in.readUnsignedShort();
+            readConstantPool();
+        }
+    }
+
+    /**
+     * @return {@code false} if the content does not start with the magic number of class files, in which case nothing
+     *         else was read
+     */
+    boolean isClassFile() {
+        return classFile;
+    }
+
+    /**
+     * @return the input, positioned after the constant pool
+     */
+    DataInputStream getInput() {
+        return in;
+    }
+
+    /**
+     * @param index the index of a Utf8 constant
+     * @return the value of the constant
+     */
+    String utf8(int index) {
+        return utf8[index];
+    }
+
+    /**
+     * @param index the index of a Class constant, or 0
+     * @return the internal name of the class, or the empty string for index 0
+     */
+    String className(int index) {
+        return index == 0 ? "" : utf8[references[index]];
+    }
+
+    /**
+     * @param index the index of a loadable constant
+     * @return the value of the constant as string
+     */
+    String constant(int index) {
+        switch (tags[index]) {
+            case CONSTANT_UTF8:
+                return utf8[index];
+            case CONSTANT_CLASS:
+            case CONSTANT_STRING:
+                return utf8[references[index]];
+            default:
+                return String.valueOf(values[index]);
+        }
+    }
+
+    /**
+     * @return {@code true} if the class carries the aspect attribute of the AspectJ compiler or the {@code @Aspect}
+     *         annotation
+     */
+    boolean isAspect() {
+        for (String value : utf8) {
+            if ("org.aspectj.weaver.Aspect".equals(value) || "Lorg/aspectj/lang/annotation/Aspect;".equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the internal names of the types in the Class constants, descriptors and signatures of the constant pool
+     */
+    Set<String> getReferencedTypes() {
+        Set<String> referencedTypes = new HashSet<>();
+        for (int i = 1; i < tags.length; i++) {
+            if (tags[i] == CONSTANT_CLASS) {
+                String className = utf8[references[i]];
+                addReferences(referencedTypes, className.startsWith("[") ? className : "L" + className + ";");
+            } else if (tags[i] == CONSTANT_UTF8 && utf8[i].indexOf(';') > 0) {
+                addReferences(referencedTypes, utf8[i]);
+            }
+        }
+        return referencedTypes;
+    }
+
+    private void readConstantPool() throws IOException {
+        int count = in.readUnsignedShort();
+        utf8 = new String[count];
+        tags = new int[count];
+        references = new int[count];
+        values = new Object[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            tags[i] = tag;
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    utf8[i] = in.readUTF();
+                    break;
+                case 3: // Integer
+                    values[i] = in.readInt();
+                    break;
+                case 4: // Float
+                    values[i] = in.readFloat();
+                    break;
+                case 5: // Long
+                    values[i] = in.readLong();
+                    i++;
+                    break;
+                case 6: // Double
+                    values[i] = in.readDouble();
+                    i++;
+                    break;
+                case CONSTANT_CLASS:
+                case CONSTANT_STRING:
+                    references[i] = in.readUnsignedShort();
+                    break;
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    in.readUnsignedShort();
+                    break;
+                case 15: // MethodHandle
+                    in.readUnsignedByte();
+                    in.readUnsignedShort();
+                    break;
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    in.readInt();
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+    }
+
+    private static void addReferences(Set<String> referencedTypes, String descriptor) {
+        Matcher matcher = DESCRIPTOR_TYPE.matcher(descriptor);
+        while (matcher.find()) {
+            referencedTypes.add(matcher.group(1));
+        }
+    }
+}
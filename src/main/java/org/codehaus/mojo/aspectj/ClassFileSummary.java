@@ -0,0 +1,347 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The parts of a class file which determine whether classes compiled against it have to be compiled again: a hash of
+ * its application binary interface (ABI), and the types it refers to. See chapter 4 of the Java Virtual Machine
+ * Specification for the class file format.
+ * <p>
+ * The ABI of a class consists of its name, modifiers, supertypes, annotations and generic signature, and the same of
+ * all its fields and methods which are not private, including the values of constants. Method bodies are not part of
+ * it. The ABI of an aspect is its whole class file, as any change of an aspect may change what it weaves.
+ * <p>
+ * The values of constants are hashed separately as well: compilers inline constants into the classes using them,
+ * which then no longer refer to the class declaring them.
+ *
+ * @since 1.17
+ */
+final class ClassFileSummary {
+
+    private static final int ACC_PRIVATE = 0x0002;
+
+    private final String name;
+
+    private final String sourceFile;
+
+    private final boolean aspect;
+
+    private final String abiHash;
+
+    private final String constantsHash;
+
+    private final List<String> supertypes;
+
+    private final Set<String> referencedTypes;
+
+    private ClassFileSummary(
+            String name,
+            String sourceFile,
+            boolean aspect,
+            String abiHash,
+            String constantsHash,
+            List<String> supertypes,
+            Set<String> referencedTypes) {
+        this.name = name;
+        this.sourceFile = sourceFile;
+        this.aspect = aspect;
+        this.abiHash = abiHash;
+        this.constantsHash = constantsHash;
+        this.supertypes = supertypes;
+        this.referencedTypes = referencedTypes;
+    }
+
+    /**
+     * @param classFile the content of a class file
+     * @return the summary of the class file
+     * @throws IOException if the content is not a valid class file
+     */
+    static ClassFileSummary read(byte[] classFile) throws IOException {
+        return new Reader(classFile).read();
+    }
+
+    /**
+     * @return the internal name of the class, e.g. {@code java/lang/String}
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return the name of the source file the class was compiled from, without directory, or {@code null} if unknown
+     */
+    String getSourceFile() {
+        return sourceFile;
+    }
+
+    /**
+     * @return {@code true} if the class is an aspect, i.e. carries the aspect attribute of the AspectJ compiler or the
+     *         {@code @Aspect} annotation
+     */
+    boolean isAspect() {
+        return aspect;
+    }
+
+    /**
+     * @return the hash of the ABI of the class
+     */
+    String getAbiHash() {
+        return abiHash;
+    }
+
+    /**
+     * @return the hash of the names and values of the constants of the class which are not private, or {@code -} if
+     *         it has none
+     */
+    String getConstantsHash() {
+        return constantsHash;
+    }
+
+    /**
+     * @return the internal names of the super class, if any, and the interfaces of the class
+     */
+    List<String> getSupertypes() {
+        return supertypes;
+    }
+
+    /**
+     * @return the internal names of the types the class refers to
+     */
+    Set<String> getReferencedTypes() {
+        return referencedTypes;
+    }
+
+    /**
+     * Reads a single class file.
+     */
+    private static final class Reader {
+
+        private final byte[] bytes;
+
+        private final ClassFileReader classFile;
+
+        private final DataInputStream in;
+
+        private final MessageDigest digest;
+
+        private final StringBuilder constants = new StringBuilder();
+
+        private Reader(byte[] bytes) throws IOException {
+            this.bytes = bytes;
+            this.classFile = new ClassFileReader(new DataInputStream(new ByteArrayInputStream(bytes)));
+            this.in = classFile.getInput();
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException("SHA-256 not supported", e);
+            }
+        }
+
+        private ClassFileSummary read() throws IOException {
+            if (!classFile.isClassFile()) {
+                throw new IOException("Not a class file");
+            }
+            update("class", in.readUnsignedShort());
+            String name = classFile.className(in.readUnsignedShort());
+            update(name);
+            List<String> supertypes = new ArrayList<>();
+            String superclass = classFile.className(in.readUnsignedShort());
+            update(superclass);
+            if (!superclass.isEmpty()) {
+                supertypes.add(superclass);
+            }
+            int interfaces = in.readUnsignedShort();
+            for (int i = 0; i < interfaces; i++) {
+                String supertype = classFile.className(in.readUnsignedShort());
+                update(supertype);
+                supertypes.add(supertype);
+            }
+            readMembers("field");
+            readMembers("method");
+            String sourceFile = null;
+            int attributes = in.readUnsignedShort();
+            for (int i = 0; i < attributes; i++) {
+                String attribute = classFile.utf8(in.readUnsignedShort());
+                byte[] content = new byte[in.readInt()];
+                in.readFully(content);
+                if ("SourceFile".equals(attribute)) {
+                    sourceFile = classFile.utf8(u2(content, 0));
+                } else {
+                    updateAttribute(attribute, content);
+                }
+            }
+
+            boolean aspect = classFile.isAspect();
+            Set<String> referencedTypes = classFile.getReferencedTypes();
+            referencedTypes.remove(name);
+
+            if (aspect) {
+                digest.reset();
+                digest.update(bytes);
+            }
+            String abiHash = toHex(digest.digest());
+            String constantsHash = constants.length() == 0
+                    ? "-"
+                    : toHex(digest.digest(constants.toString().getBytes(StandardCharsets.UTF_8)));
+            return new ClassFileSummary(name, sourceFile, aspect, abiHash, constantsHash, supertypes, referencedTypes);
+        }
+
+        private void readMembers(String kind) throws IOException {
+            int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                int access = in.readUnsignedShort();
+                String name = classFile.utf8(in.readUnsignedShort());
+                String descriptor = classFile.utf8(in.readUnsignedShort());
+                boolean exported = (access & ACC_PRIVATE) == 0;
+                if (exported) {
+                    update(kind, access);
+                    update(name);
+                    update(descriptor);
+                }
+                int attributes = in.readUnsignedShort();
+                for (int j = 0; j < attributes; j++) {
+                    String attribute = classFile.utf8(in.readUnsignedShort());
+                    byte[] content = new byte[in.readInt()];
+                    in.readFully(content);
+                    if (exported) {
+                        updateAttribute(attribute, content);
+                        if ("ConstantValue".equals(attribute)) {
+                            constants.append(name).append('=').append(classFile.constant(u2(content, 0)));
+                            constants.append('\0');
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds the attributes which are part of the ABI to the hash. Their constant pool indexes are resolved, as the
+         * constant pool of a class changes along with its method bodies.
+         */
+        private void updateAttribute(String attribute, byte[] content) throws IOException {
+            DataInputStream attributeIn = new DataInputStream(new ByteArrayInputStream(content));
+            switch (attribute) {
+                case "ConstantValue":
+                case "Signature":
+                    update(attribute);
+                    update(classFile.constant(attributeIn.readUnsignedShort()));
+                    break;
+                case "Exceptions":
+                    update(attribute);
+                    int exceptions = attributeIn.readUnsignedShort();
+                    for (int i = 0; i < exceptions; i++) {
+                        update(classFile.className(attributeIn.readUnsignedShort()));
+                    }
+                    break;
+                case "RuntimeVisibleAnnotations":
+                case "RuntimeInvisibleAnnotations":
+                    update(attribute);
+                    updateAnnotations(attributeIn);
+                    break;
+                case "RuntimeVisibleParameterAnnotations":
+                case "RuntimeInvisibleParameterAnnotations":
+                    update(attribute);
+                    int parameters = attributeIn.readUnsignedByte();
+                    for (int i = 0; i < parameters; i++) {
+                        updateAnnotations(attributeIn);
+                    }
+                    break;
+                default:
+                // Code, debug information and the like are not part of the ABI
+            }
+        }
+
+        private void updateAnnotations(DataInputStream attributeIn) throws IOException {
+            int annotations = attributeIn.readUnsignedShort();
+            for (int i = 0; i < annotations; i++) {
+                updateAnnotation(attributeIn);
+            }
+        }
+
+        private void updateAnnotation(DataInputStream attributeIn) throws IOException {
+            update("@" + classFile.utf8(attributeIn.readUnsignedShort()));
+            int pairs = attributeIn.readUnsignedShort();
+            for (int i = 0; i < pairs; i++) {
+                update(classFile.utf8(attributeIn.readUnsignedShort()));
+                updateElementValue(attributeIn);
+            }
+        }
+
+        private void updateElementValue(DataInputStream attributeIn) throws IOException {
+            int tag = attributeIn.readUnsignedByte();
+            update(String.valueOf((char) tag));
+            switch (tag) {
+                case 'e':
+                    update(classFile.utf8(attributeIn.readUnsignedShort()));
+                    update(classFile.utf8(attributeIn.readUnsignedShort()));
+                    break;
+                case 'c':
+                    update(classFile.utf8(attributeIn.readUnsignedShort()));
+                    break;
+                case '@':
+                    updateAnnotation(attributeIn);
+                    break;
+                case '[':
+                    int elements = attributeIn.readUnsignedShort();
+                    for (int i = 0; i < elements; i++) {
+                        updateElementValue(attributeIn);
+                    }
+                    break;
+                default:
+                    update(classFile.constant(attributeIn.readUnsignedShort()));
+            }
+        }
+
+        private void update(String kind, int access) {
+            update(kind + ' ' + access);
+        }
+
+        private void update(String value) {
+            digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+
+        private static String toHex(byte[] hash) {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+
+        private static int u2(byte[] content, int offset) {
+            return ((content[offset] & 0xFF) << 8) | (content[offset + 1] & 0xFF);
+        }
+    }
+}
@@ -39,7 +39,6 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Date;
-import java.util.Set;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -132,24 +131,7 @@ public class EclipseAjcMojo extends AbstractAjcMojo {
         String[] paths = new String[modules.length];
         for (int i = 0; i < modules.length; i++) {
             Module module = modules[i];
-            // String key = ArtifactUtils.versionlessKey( module.getGroupId(), module.getArtifactId() );
-            // Artifact artifact = (Artifact) project.getArtifactMap().get( key );
-            Artifact artifact = null;
-            @SuppressWarnings("unchecked")
-            Set<Artifact> allArtifacts = project.getArtifacts();
-            for (Artifact art : allArtifacts) {
-                if (art.getGroupId().equals(module.getGroupId())
-                        && art.getArtifactId().equals(module.getArtifactId())
-                        && StringUtils.equals(module.getClassifier(), art.getClassifier())
-                        && StringUtils.equals(module.getType(), module.getType())) {
-                    artifact = art;
-                    break;
-                }
-            }
-            if (artifact == null) {
-                throw new MojoExecutionException("The artifact " + module.toString()
-                        + " referenced in aspectj plugin as an aspect library, is not found the project dependencies");
-            }
+            Artifact artifact = resolveModule(module, "an aspect library");
             paths[i] = artifact.getFile().getPath();
         }
         for (int i = 1; i <= paths.length; i++) {
@@ -0,0 +1,319 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aspectj.bridge.IMessage;
+import org.aspectj.bridge.IMessageHolder;
+import org.aspectj.bridge.ISourceLocation;
+import org.aspectj.bridge.Message;
+import org.aspectj.bridge.MessageHandler;
+import org.aspectj.bridge.SourceLocation;
+import org.aspectj.tools.ajc.Main;
+
+/**
+ * Runs the AspectJ compiler in a child JVM, so the heap and JVM options of the compiler are independent of the Maven
+ * JVM. The child JVM reads the ajc arguments from an argument file and writes one line per compiler message to its
+ * standard output; these lines are passed on to the message holder of the plugin as they arrive.
+ * <p>
+ * This class is the main class of the child JVM as well, so it must not depend on any classes besides the JDK and the
+ * AspectJ tools.
+ *
+ * @since 1.17
+ */
+public class ForkedAjcCompiler {
+
+    /**
+     * Prefix of the lines of the child JVM carrying a compiler message.
+     */
+    static final String MESSAGE_PREFIX = "[ajc-message]\t";
+
+    private final String javaExecutable;
+
+    private final List<String> jvmArgs;
+
+    private final File workingDirectory;
+
+    /**
+     * @param javaExecutable the java executable launching the child JVM
+     * @param jvmArgs the options of the child JVM, e.g. {@code -Xmx2g}
+     * @param workingDirectory the working directory of the child JVM
+     */
+    public ForkedAjcCompiler(String javaExecutable, List<String> jvmArgs, File workingDirectory) {
+        this.javaExecutable = javaExecutable;
+        this.jvmArgs = jvmArgs;
+        this.workingDirectory = workingDirectory;
+    }
+
+    /**
+     * @return the java executable of the running JVM
+     */
+    public static String getDefaultJavaExecutable() {
+        File bin = new File(System.getProperty("java.home"), "bin");
+        File java = new File(bin, "java.exe");
+        return (java.isFile() ? java : new File(bin, "java")).getAbsolutePath();
+    }
+
+    /**
+     * Runs the compiler in a child JVM and waits for it to terminate. If the child JVM fails without reporting an
+     * error, e.g. because it ran out of memory, an {@link IMessage#ABORT} message is passed to the holder.
+     *
+     * @param argumentFile the ajc argument file, as passed to {@code -argfile}
+     * @param holder receives the messages of the compiler
+     * @throws IOException if the child JVM cannot be started
+     * @throws InterruptedException if interrupted while waiting for the child JVM, which is then destroyed
+     */
+    public void run(File argumentFile, final IMessageHolder holder) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(javaExecutable);
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(getLocation(Main.class) + File.pathSeparator + getLocation(ForkedAjcCompiler.class));
+        command.add(ForkedAjcCompiler.class.getName());
+        command.add(argumentFile.getAbsolutePath());
+
+        final Process process = new ProcessBuilder(command)
+                .directory(workingDirectory)
+                .redirectInput(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        Thread errorPump = new Thread(
+                new Runnable() {
+                    public void run() {
+                        pump(process, false, holder);
+                    }
+                },
+                "aspectj-fork-stderr");
+        errorPump.setDaemon(true);
+        errorPump.start();
+        try {
+            pump(process, true, holder);
+            int exitCode = process.waitFor();
+            errorPump.join();
+            synchronized (holder) {
+                if (exitCode != 0 && !holder.hasAnyMessage(IMessage.ERROR, true)) {
+                    holder.handleMessage(new Message(
+                            "Forked AspectJ compiler exited with code " + exitCode, IMessage.ABORT, null, null));
+                }
+            }
+        } finally {
+            process.destroy();
+        }
+    }
+
+    /**
+     * Passes the output of the child JVM on to the holder. Lines of the standard output carry compiler messages, any
+     * other output is passed on as warning, as it usually indicates a problem of the child JVM.
+     */
+    private static void pump(Process process, boolean standardOutput, IMessageHolder holder) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                standardOutput ? process.getInputStream() : process.getErrorStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                IMessage message = standardOutput && line.startsWith(MESSAGE_PREFIX)
+                        ? decode(line)
+                        : new Message(line, IMessage.WARNING, null, null);
+                synchronized (holder) {
+                    // The child JVM only passes on the kinds ajc did not configure to be ignored
+                    if (holder.isIgnoring(message.getKind())) {
+                        holder.dontIgnore(message.getKind());
+                    }
+                    holder.handleMessage(message);
+                }
+            }
+        } catch (IOException e) {
+            synchronized (holder) {
+                holder.handleMessage(
+                        new Message("Cannot read the output of the forked AspectJ compiler", IMessage.ABORT, e, null));
+            }
+        }
+    }
+
+    private static String getLocation(Class<?> type) throws IOException {
+        try {
+            return new File(type.getProtectionDomain()
+                            .getCodeSource()
+                            .getLocation()
+                            .toURI())
+                    .getAbsolutePath();
+        } catch (URISyntaxException | SecurityException | NullPointerException e) {
+            throw new IOException("Cannot determine the location of " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Encodes a message as a single line of tab separated fields.
+     *
+     * @param message the message
+     * @return the encoded message, starting with {@link #MESSAGE_PREFIX}
+     */
+    static String encode(IMessage message) {
+        ISourceLocation location = message.getSourceLocation();
+        String details = message.getDetails();
+        if (message.getThrown() != null) {
+            StringWriter stackTrace = new StringWriter();
+            message.getThrown().printStackTrace(new PrintWriter(stackTrace));
+            details = details == null ? stackTrace.toString() : details + "\n" + stackTrace;
+        }
+        StringBuilder line = new StringBuilder(MESSAGE_PREFIX);
+        line.append(message.getKind()).append('\t');
+        if (location != null) {
+            line.append(escape(
+                            location.getSourceFile() == null
+                                    ? null
+                                    : location.getSourceFile().getPath()))
+                    .append('\t')
+                    .append(location.getLine())
+                    .append('\t')
+                    .append(location.getEndLine())
+                    .append('\t')
+                    .append(location.getColumn())
+                    .append('\t')
+                    .append(escape(location.getContext()));
+        } else {
+            line.append("\t\t\t\t");
+        }
+        return line.append('\t')
+                .append(escape(message.getMessage()))
+                .append('\t')
+                .append(escape(details))
+                .toString();
+    }
+
+    /**
+     * Decodes a line written by {@link #encode(IMessage)}.
+     *
+     * @param line the encoded message
+     * @return the message
+     */
+    static IMessage decode(String line) {
+        String[] fields = line.substring(MESSAGE_PREFIX.length()).split("\t", -1);
+        if (fields.length != 8) {
+            return new Message(line, IMessage.WARNING, null, null);
+        }
+        IMessage.Kind kind = IMessage.WARNING;
+        for (IMessage.Kind current : IMessage.KINDS) {
+            if (current.toString().equals(fields[0])) {
+                kind = current;
+            }
+        }
+        ISourceLocation location = null;
+        if (!fields[2].isEmpty()) {
+            String sourceFile = unescape(fields[1]);
+            location = new SourceLocation(
+                    sourceFile == null ? ISourceLocation.NO_FILE : new File(sourceFile),
+                    Integer.parseInt(fields[2]),
+                    Integer.parseInt(fields[3]),
+                    Integer.parseInt(fields[4]),
+                    unescape(fields[5]));
+        }
+        return new Message(unescape(fields[6]), unescape(fields[7]), kind, location, null, null);
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(value.length() + 1).append('=');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String unescape(String value) {
+        // Non-null values start with '=', to tell an empty string from null
+        if (value.isEmpty()) {
+            return null;
+        }
+        StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 1; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                unescaped.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+
+    /**
+     * Main method of the child JVM, compiling with the arguments of the given argument file.
+     *
+     * @param args the path of the ajc argument file
+     */
+    public static void main(String[] args) throws UnsupportedEncodingException {
+        // Keep the standard output for the messages, anything else printed goes to the standard error
+        final PrintStream output = new PrintStream(new FileOutputStream(FileDescriptor.out), true, "UTF-8");
+        System.setOut(System.err);
+        MessageHandler holder = new MessageHandler() {
+            @Override
+            public boolean handleMessage(IMessage message) {
+                // Ajc configures which kinds are ignored, e.g. WEAVEINFO unless -showWeaveInfo is set
+                if (!isIgnoring(message.getKind())) {
+                    synchronized (output) {
+                        output.println(encode(message));
+                    }
+                }
+                return super.handleMessage(message);
+            }
+        };
+        Main main = new Main();
+        main.setHolder(holder);
+        main.runMain(new String[] {"-argfile", args[0]}, false);
+        output.flush();
+        System.exit(holder.hasAnyMessage(IMessage.ERROR, true) ? 1 : 0);
+    }
+}
@@ -0,0 +1,209 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.MatchPatterns;
+
+/**
+ * Restricts the classes of a jar or directory to weave to those matching include and exclude patterns. Before each
+ * compilation, the matching classes are extracted into a staging directory, which takes the place of the jar or
+ * directory on the inpath, so the weaver only processes them. All other entries, i.e. the classes not matching and the
+ * resources, are copied into the output directory unchanged, as the weaver would do for them.
+ * <p>
+ * The patterns are Ant style patterns of the class file paths, e.g. {@code com/example/service/**}.
+ *
+ * @since 1.17
+ */
+public class InpathFilter {
+
+    private final File source;
+
+    private final String[] includes;
+
+    private final String[] excludes;
+
+    private final File stagingDirectory;
+
+    /**
+     * @param source the jar or directory containing the classes to weave
+     * @param includes the patterns of the classes to weave, or {@code null} for all classes
+     * @param excludes the patterns of the classes not to weave, or {@code null}
+     * @param stagingParent the directory to create the staging directory of the matching classes in
+     * @param index the position of this filter among the filters staging into the same directory, which keeps the
+     *        staging directories of sources with the same name, e.g. {@code moduleA/target/classes} and
+     *        {@code moduleB/target/classes}, apart
+     */
+    public InpathFilter(File source, String[] includes, String[] excludes, File stagingParent, int index) {
+        this.source = source;
+        this.includes = includes;
+        this.excludes = excludes;
+        // The patterns are part of the name, so the arguments of the compiler change with the patterns. The index
+        // rather than the absolute path of the source tells sources apart, so the arguments stay relocatable.
+        this.stagingDirectory = new File(
+                stagingParent,
+                index + "-" + source.getName() + "-"
+                        + Integer.toHexString(Arrays.hashCode(new Object[] {
+                            Arrays.asList(includes == null ? new String[0] : includes),
+                            Arrays.asList(excludes == null ? new String[0] : excludes)
+                        })));
+    }
+
+    /**
+     * @param includes the patterns of the classes to weave, or {@code null}
+     * @param excludes the patterns of the classes not to weave, or {@code null}
+     * @return {@code true} if the patterns do not restrict the classes to weave
+     */
+    public static boolean isUnfiltered(String[] includes, String[] excludes) {
+        return (includes == null || includes.length == 0) && (excludes == null || excludes.length == 0);
+    }
+
+    /**
+     * @return the jar or directory containing the classes to weave
+     */
+    public File getSource() {
+        return source;
+    }
+
+    /**
+     * @return the include and exclude patterns, e.g. to tell the filters of the same source apart
+     */
+    public String getPatterns() {
+        return "includes: " + (includes == null ? "[]" : Arrays.toString(includes)) + ", excludes: "
+                + (excludes == null ? "[]" : Arrays.toString(excludes));
+    }
+
+    /**
+     * @return the directory the classes to weave are extracted to, which replaces the source on the inpath
+     */
+    public File getStagingDirectory() {
+        return stagingDirectory;
+    }
+
+    /**
+     * Extracts the classes to weave into the staging directory, replacing its previous content, and copies all other
+     * entries of the source into the output directory.
+     *
+     * @param outputDirectory the output directory of the compiler
+     * @return the number of classes to weave
+     * @throws IOException if the source cannot be read or the files cannot be written
+     */
+    public int stage(File outputDirectory) throws IOException {
+        final MatchPatterns includePatterns = MatchPatterns.from(
+                AjcHelper.normalizePatterns(includes == null || includes.length == 0 ? new String[] {"**"} : includes));
+        final MatchPatterns excludePatterns = MatchPatterns.from(AjcHelper.normalizePatterns(excludes));
+        FileUtils.deleteDirectory(stagingDirectory);
+        FileUtils.forceMkdir(stagingDirectory);
+
+        final List<String> woven = new ArrayList<>();
+        if (source.isDirectory()) {
+            final Path root = source.toPath();
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    String name = root.relativize(file).toString();
+                    boolean weave = isWoven(name, includePatterns, excludePatterns);
+                    if (weave) {
+                        woven.add(name);
+                    }
+                    Path target = new File(weave ? stagingDirectory : outputDirectory, name).toPath();
+                    Files.createDirectories(target.getParent());
+                    Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } else {
+            try (ZipFile zip = new ZipFile(source)) {
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    String name = entry.getName().replace('/', File.separatorChar);
+                    if (entry.isDirectory() || isJarMetadata(entry.getName())) {
+                        continue;
+                    }
+                    boolean weave = isWoven(name, includePatterns, excludePatterns);
+                    if (weave) {
+                        woven.add(name);
+                    }
+                    Path targetDirectory = (weave ? stagingDirectory : outputDirectory)
+                            .getAbsoluteFile()
+                            .toPath()
+                            .normalize();
+                    File target = targetDirectory.resolve(name).normalize().toFile();
+                    if (!target.toPath().startsWith(targetDirectory)) {
+                        throw new IOException("Invalid entry " + entry.getName() + " in " + source);
+                    }
+                    FileUtils.forceMkdir(target.getParentFile());
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        Files.copy(in, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    if (entry.getTime() != -1) {
+                        Files.setLastModifiedTime(target.toPath(), FileTime.fromMillis(entry.getTime()));
+                    }
+                }
+            }
+        }
+        return woven.size();
+    }
+
+    private static boolean isWoven(String name, MatchPatterns includes, MatchPatterns excludes) {
+        return name.endsWith(".class") && includes.matches(name, true) && !excludes.matches(name, true);
+    }
+
+    /**
+     * The manifest and signatures of a jar describe the jar, not the output directory, so they are not copied.
+     */
+    private static boolean isJarMetadata(String name) {
+        String upperCase = name.toUpperCase(Locale.ROOT);
+        return upperCase.equals("META-INF/MANIFEST.MF")
+                || (upperCase.startsWith("META-INF/")
+                        && (upperCase.endsWith(".SF")
+                                || upperCase.endsWith(".RSA")
+                                || upperCase.endsWith(".DSA")
+                                || upperCase.endsWith(".EC")));
+    }
+
+    @Override
+    public String toString() {
+        return source + " (" + getPatterns() + ")";
+    }
+}
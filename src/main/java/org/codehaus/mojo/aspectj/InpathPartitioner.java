@@ -0,0 +1,185 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Partitions the jars and directories of the inpath into groups which do not refer to each other, so each group can be
+ * woven by a compiler of its own. Two entries are in the same group if a class of one refers to a class of the other,
+ * determined by the class names in the constant pools of their class files.
+ *
+ * @since 1.17
+ */
+public final class InpathPartitioner {
+
+    private InpathPartitioner() {}
+
+    /**
+     * Partitions the given inpath entries.
+     *
+     * @param entries the jars and directories of the inpath
+     * @return the groups of entries, in the order of their first entry; or {@code null} if an entry contains an
+     *         aspect, which may apply to the classes of all other entries
+     * @throws IOException if an entry cannot be read
+     */
+    public static List<List<String>> partition(List<String> entries) throws IOException {
+        List<EntryTypes> types;
+        try {
+            types = entries.parallelStream().map(InpathPartitioner::readTypes).collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        Map<String, Integer> owners = new HashMap<>();
+        for (int i = 0; i < types.size(); i++) {
+            if (types.get(i).containsAspect) {
+                return null;
+            }
+            for (String type : types.get(i).defined) {
+                owners.putIfAbsent(type, i);
+            }
+        }
+
+        int[] parents = new int[entries.size()];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+        }
+        for (int i = 0; i < types.size(); i++) {
+            for (String type : types.get(i).referenced) {
+                Integer owner = owners.get(type);
+                if (owner != null) {
+                    parents[find(parents, owner)] = find(parents, i);
+                }
+            }
+        }
+
+        Map<Integer, List<String>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            groups.computeIfAbsent(find(parents, i), root -> new ArrayList<>()).add(entries.get(i));
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * Determines whether a class file is an aspect, i.e. carries the aspect attribute of the AspectJ compiler or the
+     * {@code @Aspect} annotation.
+     *
+     * @param classFile the content of the class file
+     * @return {@code true} if the class is an aspect
+     * @throws IOException if the class file cannot be read
+     */
+    static boolean isAspect(InputStream classFile) throws IOException {
+        ClassFileReader reader = new ClassFileReader(new DataInputStream(new BufferedInputStream(classFile)));
+        return reader.isClassFile() && reader.isAspect();
+    }
+
+    private static int find(int[] parents, int i) {
+        while (parents[i] != i) {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+        return i;
+    }
+
+    private static EntryTypes readTypes(String entry) {
+        EntryTypes types = new EntryTypes();
+        File file = new File(entry);
+        try {
+            if (file.isDirectory()) {
+                Path root = file.toPath();
+                try (Stream<Path> paths = Files.walk(root)) {
+                    for (Path path : (Iterable<Path>) paths::iterator) {
+                        String name = root.relativize(path).toString().replace(File.separatorChar, '/');
+                        if (name.endsWith(".class") && Files.isRegularFile(path)) {
+                            try (InputStream in = Files.newInputStream(path)) {
+                                types.add(name, in);
+                            }
+                        }
+                    }
+                }
+            } else if (file.isFile()) {
+                try (ZipFile zip = new ZipFile(file)) {
+                    Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+                    while (zipEntries.hasMoreElements()) {
+                        ZipEntry zipEntry = zipEntries.nextElement();
+                        if (!zipEntry.isDirectory() && zipEntry.getName().endsWith(".class")) {
+                            try (InputStream in = zip.getInputStream(zipEntry)) {
+                                types.add(zipEntry.getName(), in);
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the classes of " + entry, e);
+        }
+        return types;
+    }
+
+    /**
+     * The types defined and referred to by the classes of an inpath entry.
+     */
+    private static final class EntryTypes {
+        private final Set<String> defined = new HashSet<>();
+
+        private final Set<String> referenced = new HashSet<>();
+
+        private boolean containsAspect;
+
+        private void add(String name, InputStream classFile) throws IOException {
+            String typeName = name.substring(0, name.length() - ".class".length());
+            // Multi release jars hold versions of the same types
+            if (typeName.startsWith("META-INF/versions/")) {
+                int start = typeName.indexOf('/', "META-INF/versions/".length());
+                typeName = start < 0 ? typeName : typeName.substring(start + 1);
+            }
+            defined.add(typeName);
+            ClassFileReader reader = new ClassFileReader(new DataInputStream(new BufferedInputStream(classFile)));
+            if (reader.isClassFile()) {
+                referenced.addAll(reader.getReferencedTypes());
+                containsAspect |= reader.isAspect();
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.aspectj.bridge.IMessage;
+import org.aspectj.bridge.IMessageHolder;
+import org.aspectj.bridge.ISourceLocation;
+import org.aspectj.bridge.Message;
+import org.aspectj.bridge.SourceLocation;
+import org.aspectj.tools.ajc.Main;
+
+/**
+ * Runs the AspectJ compiler loaded by a class loader of its own, so its static state is not shared with other
+ * compilers running in the same JVM. Messages of the isolated compiler are converted and passed on to a message holder
+ * of the plugin class loader, as they are emitted.
+ *
+ * @since 1.17
+ */
+public class IsolatedAjcCompiler implements Closeable {
+
+    private final URLClassLoader classLoader;
+
+    private final Class<?> messageClass;
+
+    private final Class<?> sourceLocationClass;
+
+    private final Class<?> messageHolderClass;
+
+    private final Class<?> mainClass;
+
+    /**
+     * Creates a compiler loading the AspectJ tools the plugin itself uses.
+     *
+     * @throws IOException if the location of the AspectJ tools cannot be determined
+     */
+    public IsolatedAjcCompiler() throws IOException {
+        this(new URL[] {getAspectjToolsLocation()});
+    }
+
+    /**
+     * Creates a compiler loading AspectJ from the given class path.
+     *
+     * @param classpath the class path containing the AspectJ tools
+     * @throws IOException if the AspectJ compiler classes cannot be loaded
+     */
+    public IsolatedAjcCompiler(URL[] classpath) throws IOException {
+        // Only share the JDK classes, i.e. use the extension respectively platform class loader as parent
+        classLoader =
+                new URLClassLoader(classpath, ClassLoader.getSystemClassLoader().getParent());
+        try {
+            messageClass = classLoader.loadClass(IMessage.class.getName());
+            sourceLocationClass = classLoader.loadClass(ISourceLocation.class.getName());
+            messageHolderClass = classLoader.loadClass(IMessageHolder.class.getName());
+            mainClass = classLoader.loadClass(Main.class.getName());
+        } catch (ClassNotFoundException e) {
+            classLoader.close();
+            throw new IOException("AspectJ compiler not found in " + Arrays.toString(classpath), e);
+        }
+    }
+
+    /**
+     * @return the location of the jar (or directory) the AspectJ compiler of the plugin is loaded from
+     * @throws IOException if the location cannot be determined
+     */
+    public static URL getAspectjToolsLocation() throws IOException {
+        try {
+            return new File(Main.class
+                            .getProtectionDomain()
+                            .getCodeSource()
+                            .getLocation()
+                            .toURI())
+                    .toURI()
+                    .toURL();
+        } catch (URISyntaxException | SecurityException | NullPointerException e) {
+            throw new IOException("Cannot determine the location of the AspectJ compiler", e);
+        }
+    }
+
+    /**
+     * Runs the isolated compiler, the same way as {@link Main#runMain(String[], boolean)}.
+     *
+     * @param arguments the ajc arguments
+     * @param holder receives the messages of the compiler
+     */
+    public void run(final String[] arguments, final IMessageHolder holder) {
+        Thread currentThread = Thread.currentThread();
+        ClassLoader oldContextClassLoader = currentThread.getContextClassLoader();
+        try {
+            currentThread.setContextClassLoader(classLoader);
+            Object holderProxy = Proxy.newProxyInstance(
+                    classLoader, new Class<?>[] {messageHolderClass}, new MessageHolderBridge(holder));
+            Object main = mainClass.getConstructor().newInstance();
+            mainClass.getMethod("setHolder", messageHolderClass).invoke(main, holderProxy);
+            mainClass.getMethod("runMain", String[].class, boolean.class).invoke(main, arguments, false);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Isolated AspectJ compiler failed", cause);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot run isolated AspectJ compiler", e);
+        } finally {
+            currentThread.setContextClassLoader(oldContextClassLoader);
+        }
+    }
+
+    /**
+     * Runs the ajdoc tool of the isolated AspectJ tools. As ajdoc keeps its state in static fields, concurrent runs
+     * need isolated compilers of their own.
+     *
+     * @param workingDirectory the directory ajdoc creates its intermediate {@code ajdocworkingdir} in
+     * @param arguments the ajdoc arguments
+     * @return {@code true} if ajdoc completed, {@code false} if it aborted
+     */
+    public boolean runAjdoc(final File workingDirectory, final String[] arguments) {
+        Thread currentThread = Thread.currentThread();
+        ClassLoader oldContextClassLoader = currentThread.getContextClassLoader();
+        try {
+            currentThread.setContextClassLoader(classLoader);
+            Class<?> ajdocClass = classLoader.loadClass("org.aspectj.tools.ajdoc.Main");
+            ajdocClass.getMethod("setOutputWorkingDir", String.class).invoke(null, workingDirectory.getAbsolutePath());
+            ajdocClass.getMethod("main", String[].class).invoke(null, (Object) arguments);
+            return !(Boolean) ajdocClass.getMethod("hasAborted").invoke(null);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Isolated ajdoc failed", cause);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot run isolated ajdoc", e);
+        } finally {
+            currentThread.setContextClassLoader(oldContextClassLoader);
+        }
+    }
+
+    /**
+     * Releases the class loader of the compiler.
+     */
+    public void close() throws IOException {
+        classLoader.close();
+    }
+
+    /**
+     * Implements the {@link IMessageHolder} interface of the isolated compiler by delegating to a message holder of
+     * the plugin class loader.
+     */
+    private final class MessageHolderBridge implements InvocationHandler {
+
+        private final IMessageHolder delegate;
+
+        private MessageHolderBridge(IMessageHolder delegate) {
+            this.delegate = delegate;
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("handleMessage".equals(name)) {
+                return delegate.handleMessage(toMessage(args[0]));
+            } else if ("isIgnoring".equals(name)) {
+                return delegate.isIgnoring(toKind(args[0]));
+            } else if ("dontIgnore".equals(name)) {
+                delegate.dontIgnore(toKind(args[0]));
+                return null;
+            } else if ("ignore".equals(name)) {
+                delegate.ignore(toKind(args[0]));
+                return null;
+            } else if ("hasAnyMessage".equals(name)) {
+                return delegate.hasAnyMessage(toKind(args[0]), (Boolean) args[1]);
+            } else if ("numMessages".equals(name)) {
+                return delegate.numMessages(toKind(args[0]), (Boolean) args[1]);
+            } else if ("getMessages".equals(name)) {
+                // Messages cannot be handed back to the isolated compiler, which only uses them for reporting
+                return Array.newInstance(messageClass, 0);
+            } else if ("getUnmodifiableListView".equals(name)) {
+                return Collections.emptyList();
+            } else if ("clearMessages".equals(name)) {
+                delegate.clearMessages();
+                return null;
+            } else if ("equals".equals(name)) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            } else if ("toString".equals(name)) {
+                return "MessageHolderBridge[" + delegate + "]";
+            }
+            throw new UnsupportedOperationException(method.toString());
+        }
+
+        private IMessage.Kind toKind(Object kind) {
+            if (kind == null) {
+                return null;
+            }
+            String kindName = kind.toString();
+            for (IMessage.Kind current : IMessage.KINDS) {
+                if (current.toString().equals(kindName)) {
+                    return current;
+                }
+            }
+            throw new IllegalArgumentException("Unknown message kind " + kindName);
+        }
+
+        private IMessage toMessage(Object message) throws ReflectiveOperationException {
+            List<?> extraLocations = (List<?>) invoke(messageClass, "getExtraSourceLocations", message);
+            ISourceLocation[] extraSourceLocations =
+                    new ISourceLocation[extraLocations == null ? 0 : extraLocations.size()];
+            for (int i = 0; i < extraSourceLocations.length; i++) {
+                extraSourceLocations[i] = toSourceLocation(extraLocations.get(i));
+            }
+            return new Message(
+                    (String) invoke(messageClass, "getMessage", message),
+                    (String) invoke(messageClass, "getDetails", message),
+                    toKind(invoke(messageClass, "getKind", message)),
+                    toSourceLocation(invoke(messageClass, "getSourceLocation", message)),
+                    (Throwable) invoke(messageClass, "getThrown", message),
+                    extraSourceLocations,
+                    (Boolean) invoke(messageClass, "getDeclared", message),
+                    (Integer) invoke(messageClass, "getID", message),
+                    (Integer) invoke(messageClass, "getSourceStart", message),
+                    (Integer) invoke(messageClass, "getSourceEnd", message));
+        }
+
+        private ISourceLocation toSourceLocation(Object location) throws ReflectiveOperationException {
+            if (location == null) {
+                return null;
+            }
+            return new SourceLocation(
+                    (File) invoke(sourceLocationClass, "getSourceFile", location),
+                    (Integer) invoke(sourceLocationClass, "getLine", location),
+                    (Integer) invoke(sourceLocationClass, "getEndLine", location),
+                    (Integer) invoke(sourceLocationClass, "getColumn", location),
+                    (String) invoke(sourceLocationClass, "getContext", location));
+        }
+
+        private Object invoke(Class<?> type, String methodName, Object target) throws ReflectiveOperationException {
+            return type.getMethod(methodName).invoke(target);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps isolated AspectJ compilers alive after use, so later executions reuse compilers whose classes are already
+ * loaded and compiled by the JIT instead of loading a new one. The pool lives as long as the plugin class loader,
+ * i.e. for the whole reactor build, or across builds when Maven runs as a daemon.
+ * <p>
+ * A compiler is only used by one execution at a time. Compilers which were not used for their idle timeout are
+ * closed, so their memory is released. At most as many compilers as there are processors are kept, the least recently
+ * used compiler is closed when another one is returned to a full pool.
+ *
+ * @since 1.17
+ */
+public final class IsolatedAjcCompilerPool {
+
+    private static final IsolatedAjcCompilerPool INSTANCE = new IsolatedAjcCompilerPool();
+
+    /**
+     * Maximum number of idle compilers kept.
+     */
+    static final int MAX_IDLE_COMPILERS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Idle compilers, the most recently used first.
+     */
+    private final Deque<IdleCompiler> idleCompilers = new ArrayDeque<>();
+
+    private ScheduledExecutorService evictor;
+
+    private IsolatedAjcCompilerPool() {}
+
+    /**
+     * @return the pool shared by all executions of the plugin
+     */
+    public static IsolatedAjcCompilerPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Takes the most recently used idle compiler out of the pool, or creates a new one if none is idle.
+     *
+     * @return a compiler for exclusive use by the caller
+     * @throws IOException if a new compiler cannot be created
+     */
+    public IsolatedAjcCompiler borrow() throws IOException {
+        synchronized (this) {
+            IdleCompiler idle = idleCompilers.pollFirst();
+            if (idle != null) {
+                return idle.compiler;
+            }
+        }
+        return new IsolatedAjcCompiler();
+    }
+
+    /**
+     * Returns a compiler to the pool.
+     *
+     * @param compiler a compiler obtained from {@link #borrow()}, which completed its last run normally
+     * @param idleTimeout the time in milliseconds after which the compiler is closed if it was not used again, if
+     * {@code 0} or less the compiler is closed right away
+     */
+    public synchronized void release(IsolatedAjcCompiler compiler, long idleTimeout) {
+        if (idleTimeout <= 0) {
+            close(compiler);
+            return;
+        }
+        if (idleCompilers.size() >= MAX_IDLE_COMPILERS) {
+            close(idleCompilers.pollLast().compiler);
+        }
+        idleCompilers.addFirst(new IdleCompiler(compiler, System.currentTimeMillis() + idleTimeout));
+        if (evictor == null) {
+            evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "aspectj-compiler-pool-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        evictor.schedule(this::evictIdleCompilers, idleTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the number of idle compilers in the pool
+     */
+    public synchronized int getIdleCount() {
+        return idleCompilers.size();
+    }
+
+    /**
+     * Closes the compilers which were idle for longer than their timeout.
+     */
+    synchronized void evictIdleCompilers() {
+        long now = System.currentTimeMillis();
+        for (Iterator<IdleCompiler> it = idleCompilers.iterator(); it.hasNext(); ) {
+            IdleCompiler idle = it.next();
+            if (idle.expiresAt <= now) {
+                it.remove();
+                close(idle.compiler);
+            }
+        }
+    }
+
+    private static void close(IsolatedAjcCompiler compiler) {
+        try {
+            compiler.close();
+        } catch (IOException e) {
+            // Nothing left to do with the compiler, the class loader is unreachable anyway
+        }
+    }
+
+    private static final class IdleCompiler {
+        private final IsolatedAjcCompiler compiler;
+
+        private final long expiresAt;
+
+        private IdleCompiler(IsolatedAjcCompiler compiler, long expiresAt) {
+            this.compiler = compiler;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Caches whether dependency jars contain class files or service registrations, so the executions of a build only read
+ * the central directory of a jar once. The cache lives as long as the plugin class loader, i.e. for the whole reactor
+ * build, or across builds when Maven runs as a daemon. A cached content is only used while size and modification time
+ * of its jar are unchanged.
+ * <p>
+ * The AspectJ compiler cannot be handed an index of the jars, it opens the jars of its classpath itself. The cache only
+ * serves to leave the jars it does not need out of its classpath.
+ *
+ * @since 1.17
+ */
+public final class JarContentCache {
+
+    /**
+     * Maximum number of jars whose content is kept, the least recently used are dropped first.
+     */
+    private static final int MAX_JARS = 1024;
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private static final String SERVICES_PREFIX = "META-INF/services/";
+
+    private static final JarContentCache INSTANCE = new JarContentCache();
+
+    private final Map<String, JarContent> contents = new LinkedHashMap<String, JarContent>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JarContent> eldest) {
+            return size() > MAX_JARS;
+        }
+    };
+
+    private JarContentCache() {}
+
+    /**
+     * @return the cache shared by all executions of the plugin
+     */
+    public static JarContentCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param file a classpath element
+     * @return {@code true} if the given file is a jar (or zip) file, whose content is cached
+     */
+    public static boolean isArchive(File file) {
+        String name = file.getName().toLowerCase();
+        return (name.endsWith(".jar") || name.endsWith(".zip")) && file.isFile();
+    }
+
+    /**
+     * Returns the content of the given jar, reading its central directory unless a valid content is cached.
+     *
+     * @param jar the jar file
+     * @return the content of the jar
+     * @throws IOException if the jar cannot be read
+     */
+    public JarContent getContent(File jar) throws IOException {
+        String path = jar.getAbsolutePath();
+        long size = jar.length();
+        long lastModified = jar.lastModified();
+        JarContent content;
+        synchronized (contents) {
+            content = contents.get(path);
+        }
+        if (content != null && content.size == size && content.lastModified == lastModified) {
+            return content;
+        }
+        content = JarContent.read(jar, size, lastModified);
+        synchronized (contents) {
+            contents.put(path, content);
+        }
+        return content;
+    }
+
+    /**
+     * Returns the contents of the given jars, reading the central directories of the jars not cached in parallel.
+     *
+     * @param jars the jar files
+     * @return the contents, in the order of the given jars
+     * @throws IOException if a jar cannot be read
+     */
+    public List<JarContent> getContents(Collection<File> jars) throws IOException {
+        try {
+            JarContent[] result = jars.parallelStream()
+                    .map(jar -> {
+                        try {
+                            return getContent(jar);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .toArray(JarContent[]::new);
+            return Arrays.asList(result);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @return the number of jars whose content is cached
+     */
+    public int size() {
+        synchronized (contents) {
+            return contents.size();
+        }
+    }
+
+    /**
+     * What the central directory of a jar contains.
+     */
+    public static final class JarContent {
+
+        private final File jar;
+
+        private final long size;
+
+        private final long lastModified;
+
+        private final boolean classes;
+
+        private final boolean services;
+
+        private JarContent(File jar, long size, long lastModified, boolean classes, boolean services) {
+            this.jar = jar;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.classes = classes;
+            this.services = services;
+        }
+
+        private static JarContent read(File jar, long size, long lastModified) throws IOException {
+            boolean classes = false;
+            boolean services = false;
+            try (ZipFile zipFile = new ZipFile(jar)) {
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements() && !(classes && services)) {
+                    String name = entries.nextElement().getName();
+                    if (name.endsWith(CLASS_SUFFIX)) {
+                        classes = true;
+                    } else if (name.startsWith(SERVICES_PREFIX) && name.length() > SERVICES_PREFIX.length()) {
+                        services = true;
+                    }
+                }
+            }
+            return new JarContent(jar, size, lastModified, classes, services);
+        }
+
+        /**
+         * @return the jar
+         */
+        public File getJar() {
+            return jar;
+        }
+
+        /**
+         * @return {@code true} if the jar contains class files
+         */
+        public boolean hasClasses() {
+            return classes;
+        }
+
+        /**
+         * @return {@code true} if the jar registers services in {@code META-INF/services}, e.g. annotation processors
+         */
+        public boolean hasServices() {
+            return services;
+        }
+    }
+}
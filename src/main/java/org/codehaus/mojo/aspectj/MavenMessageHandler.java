@@ -23,29 +23,49 @@ package org.codehaus.mojo.aspectj;
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  * SOFTWARE.
  */
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.maven.plugin.logging.Log;
 import org.aspectj.bridge.IMessage;
 import org.aspectj.bridge.ISourceLocation;
 import org.aspectj.bridge.MessageHandler;
+import org.codehaus.plexus.util.FileUtils;
 
 /**
  * MessageHandler implementation which uses the standard Maven Log to emit
  * messages from the AJC process. For warnings and error messages from the AJC,
  * the message detail (containing information about class and line number location)
  * is emitted as well.
+ * <p>
+ * In streaming mode, only messages of kind {@link IMessage#ERROR} or greater are retained; all other messages are only
+ * emitted and counted, so the memory used does not grow with the number of messages, e.g. the weave info of a large
+ * module. Messages may additionally be written to a file, in which case messages less than {@link IMessage#WARNING}
+ * are written to the file instead of the Maven Log. Likewise, weave info messages may be written to a
+ * {@link WeaveInfoWriter}.
  *
  * @author <a href="mailto:kaare.nilsen@gmail.com">Kaare Nilsen</a>
  * @author <a href="mailto:lj@jguru.se">Lennart J&ouml;relid</a>, jGuru Europe AB
  */
-public class MavenMessageHandler extends MessageHandler {
+public class MavenMessageHandler extends MessageHandler implements Closeable {
 
     // Internal state
     private static final List<IMessage.Kind> DEFAULT_DETAIL_TYPES;
     private Log log;
     private List<IMessage.Kind> showDetailsForMessageKindList;
+    private boolean streaming;
+    private final int[] streamedCounts = new int[IMessage.KINDS.size()];
+    private Writer messageWriter;
+    private WeaveInfoWriter weaveInfoWriter;
 
     static {
         DEFAULT_DETAIL_TYPES = new ArrayList<IMessage.Kind>();
@@ -132,6 +152,17 @@ public class MavenMessageHandler extends MessageHandler {
 
         final String messageText = builder.toString();
 
+        if (isNotIgnored(message, IMessage.WEAVEINFO) && writeWeaveInfo(message)) {
+            writeMessage(message.getKind(), messageText);
+            return retain(message);
+        }
+
+        if (!isIgnoring(message.getKind()) && writeMessage(message.getKind(), messageText)) {
+            if (!IMessage.WARNING.isSameOrLessThan(message.getKind())) {
+                return retain(message);
+            }
+        }
+
         if (isNotIgnored(message, IMessage.DEBUG)
                 || isNotIgnored(message, IMessage.INFO)
                 || isNotIgnored(message, IMessage.TASKTAG)) {
@@ -157,14 +188,181 @@ public class MavenMessageHandler extends MessageHandler {
             log.error(messageText);
         }
 
-        // Delegate to normal handling.
-        return super.handleMessage(message);
+        return retain(message);
+    }
+
+    /**
+     * Switches streaming mode on or off. In streaming mode, messages less than {@link IMessage#ERROR} are counted but
+     * not retained, i.e. not returned by {@link #getMessages(IMessage.Kind, boolean)}.
+     *
+     * @param streaming {@code true} to only retain error messages
+     * @since 1.17
+     */
+    public void setStreaming(final boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Writes all messages which are not ignored to the given file, as they are emitted. Messages less than
+     * {@link IMessage#WARNING} are no longer copied to the Maven Log.
+     *
+     * @param messageFile the file to write, replaced if it exists
+     * @throws IOException if the file cannot be created
+     * @since 1.17
+     */
+    public synchronized void setMessageFile(final File messageFile) throws IOException {
+        closeMessageWriter();
+        FileUtils.forceMkdir(messageFile.getAbsoluteFile().getParentFile());
+        messageWriter =
+                new BufferedWriter(new OutputStreamWriter(new FileOutputStream(messageFile), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the weave info messages to the given file, as table of the advised join points, instead of the Maven Log.
+     *
+     * @param weaveInfoFile the file to write, replaced if it exists
+     * @throws IOException if the file cannot be created
+     * @see WeaveInfoWriter
+     * @since 1.17
+     */
+    public synchronized void setWeaveInfoFile(final File weaveInfoFile) throws IOException {
+        closeWeaveInfoWriter();
+        weaveInfoWriter = new WeaveInfoWriter(weaveInfoFile);
+    }
+
+    /**
+     * Closes the message and weave info files, if any.
+     *
+     * @throws IOException if a file cannot be written
+     * @since 1.17
+     */
+    public synchronized void close() throws IOException {
+        try {
+            closeMessageWriter();
+        } finally {
+            closeWeaveInfoWriter();
+        }
+    }
+
+    private void closeMessageWriter() throws IOException {
+        if (messageWriter != null) {
+            try {
+                messageWriter.close();
+            } finally {
+                messageWriter = null;
+            }
+        }
+    }
+
+    private void closeWeaveInfoWriter() throws IOException {
+        if (weaveInfoWriter != null) {
+            try {
+                weaveInfoWriter.close();
+            } finally {
+                weaveInfoWriter = null;
+            }
+        }
+    }
+
+    // The ignored kinds are shared by the compilers of a parallelWeaving execution
+
+    @Override
+    public synchronized boolean isIgnoring(final IMessage.Kind kind) {
+        return super.isIgnoring(kind);
+    }
+
+    @Override
+    public synchronized void ignore(final IMessage.Kind kind) {
+        super.ignore(kind);
+    }
+
+    @Override
+    public synchronized void dontIgnore(final IMessage.Kind kind) {
+        super.dontIgnore(kind);
+    }
+
+    @Override
+    public synchronized boolean hasAnyMessage(final IMessage.Kind kind, final boolean orGreater) {
+        return streamedCount(kind, orGreater) > 0 || super.hasAnyMessage(kind, orGreater);
+    }
+
+    @Override
+    public synchronized int numMessages(final IMessage.Kind kind, final boolean orGreater) {
+        return streamedCount(kind, orGreater) + super.numMessages(kind, orGreater);
+    }
+
+    @Override
+    public synchronized void clearMessages() {
+        super.clearMessages();
+        Arrays.fill(streamedCounts, 0);
     }
 
     //
     // Private helpers
     //
 
+    private synchronized boolean retain(final IMessage message) {
+        if (streaming && message.getKind().isSameOrLessThan(IMessage.WARNING)) {
+            if (!isIgnoring(message.getKind())) {
+                streamedCounts[IMessage.KINDS.indexOf(message.getKind())]++;
+            }
+            return true;
+        }
+
+        // Delegate to normal handling.
+        return super.handleMessage(message);
+    }
+
+    // Returns false if there is no message file, the writers are checked under the lock as close() may run concurrently
+
+    private synchronized boolean writeMessage(final IMessage.Kind kind, final String messageText) {
+        if (messageWriter == null) {
+            return false;
+        }
+        try {
+            messageWriter.write(kind.toString());
+            messageWriter.write(": ");
+            messageWriter.write(messageText);
+            messageWriter.write(System.lineSeparator());
+        } catch (IOException e) {
+            log.warn("Could not write AJC message to file, " + e.getMessage());
+            try {
+                closeMessageWriter();
+            } catch (IOException ignored) {
+                // Already reported
+            }
+        }
+        return true;
+    }
+
+    private synchronized boolean writeWeaveInfo(final IMessage message) {
+        if (weaveInfoWriter == null) {
+            return false;
+        }
+        try {
+            weaveInfoWriter.write(message);
+        } catch (IOException e) {
+            log.warn("Could not write AJC weave info to file, " + e.getMessage());
+            try {
+                closeWeaveInfoWriter();
+            } catch (IOException ignored) {
+                // Already reported
+            }
+        }
+        return true;
+    }
+
+    private int streamedCount(final IMessage.Kind kind, final boolean orGreater) {
+        int count = 0;
+        for (int i = 0; i < streamedCounts.length; i++) {
+            IMessage.Kind current = IMessage.KINDS.get(i);
+            if (kind == null || kind.equals(current) || (orGreater && kind.isSameOrLessThan(current))) {
+                count += streamedCounts[i];
+            }
+        }
+        return count;
+    }
+
     private boolean isMessageDetailDesired(final IMessage message) {
 
         if (message != null) {
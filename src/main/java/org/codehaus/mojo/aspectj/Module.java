@@ -43,6 +43,12 @@ public class Module {
     /** Artifact's type */
     private String type;
 
+    /** Patterns of the classes to weave */
+    private String[] includes;
+
+    /** Patterns of the classes not to weave */
+    private String[] excludes;
+
     /**
      * @return id of artifact
      */
@@ -107,4 +113,37 @@ public class Module {
     public void setType(String type) {
         this.type = type;
     }
+
+    /**
+     * @return patterns of the class files of the artifact to weave, e.g. {@code com/example/service/**}; all classes
+     *         are woven if none are given
+     * @since 1.17
+     */
+    public String[] getIncludes() {
+        return includes;
+    }
+
+    /**
+     * @param includes patterns of the class files of the artifact to weave
+     * @since 1.17
+     */
+    public void setIncludes(String[] includes) {
+        this.includes = includes;
+    }
+
+    /**
+     * @return patterns of the class files of the artifact not to weave, which are copied to the output unchanged
+     * @since 1.17
+     */
+    public String[] getExcludes() {
+        return excludes;
+    }
+
+    /**
+     * @param excludes patterns of the class files of the artifact not to weave
+     * @since 1.17
+     */
+    public void setExcludes(String[] excludes) {
+        this.excludes = excludes;
+    }
 }
@@ -0,0 +1,377 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.logging.Log;
+import org.aspectj.bridge.IMessage;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * A message handler profiling the AspectJ compiler by the messages it reports while running with the {@code -verbose},
+ * {@code -showWeaveInfo} and {@code -timers} options, see {@link #PROFILING_ARGUMENTS}:
+ * <ul>
+ * <li>the time spent before the first source is compiled (parsing), compiling and weaving, and after the last type is
+ * woven (writing the output),</li>
+ * <li>the time spent per woven type, and the number of join point shadows advised in it,</li>
+ * <li>the number of join point shadows advised per aspect,</li>
+ * <li>the time and number of calls per pointcut for matching join point shadows, and for fast matching types.</li>
+ * </ul>
+ * The messages only requested for profiling are not logged, unless configured otherwise.
+ *
+ * @since 1.17
+ */
+public class ProfilingMessageHandler extends MavenMessageHandler {
+
+    /**
+     * The ajc arguments making the compiler report the messages profiled.
+     */
+    public static final String[] PROFILING_ARGUMENTS = {"-verbose", "-showWeaveInfo", "-timers"};
+
+    private static final Pattern COMPILING = Pattern.compile("^compiling (.+)$");
+
+    private static final Pattern WOVEN = Pattern.compile("^woven \\w+ (\\S+)(?: \\(from (.+)\\))?$");
+
+    private static final Pattern ADVISED =
+            Pattern.compile("^Join point '.*' in Type '([^']+)' .* advised by .* from '([^']+)'", Pattern.DOTALL);
+
+    private static final Pattern MATCHING =
+            Pattern.compile("^Time:(\\d+)ms \\((jps|types):#(\\d+)\\) (fast )?matching against (.+)$");
+
+    private static final Pattern SINGLETON_ASPECT = Pattern.compile("persingleton\\(([\\w.$]+)\\)");
+
+    private static final int SUMMARY_SIZE = 10;
+
+    private final Log log;
+
+    private final boolean logVerbose;
+
+    private final boolean logWeaveInfo;
+
+    private final long start = System.nanoTime();
+
+    private long firstCompiling = -1;
+
+    private long lastWoven = -1;
+
+    private long lastEvent = start;
+
+    private long finish = -1;
+
+    private final Map<String, TypeProfile> types = new LinkedHashMap<>();
+
+    private final Map<String, Integer> aspectShadows = new TreeMap<>();
+
+    private final Map<String, PointcutProfile> pointcuts = new LinkedHashMap<>();
+
+    /**
+     * @param log the Maven log
+     * @param logVerbose whether the {@code -verbose} messages are logged, i.e. were configured
+     * @param logWeaveInfo whether the {@code -showWeaveInfo} messages are logged, i.e. were configured
+     */
+    public ProfilingMessageHandler(Log log, boolean logVerbose, boolean logWeaveInfo) {
+        super(log);
+        this.log = log;
+        this.logVerbose = logVerbose;
+        this.logWeaveInfo = logWeaveInfo;
+    }
+
+    @Override
+    public synchronized boolean handleMessage(IMessage message) {
+        long now = System.nanoTime();
+        IMessage.Kind kind = message.getKind();
+        String text = message.getMessage() == null ? "" : message.getMessage();
+        if (kind == IMessage.WEAVEINFO) {
+            Matcher advised = ADVISED.matcher(text);
+            if (advised.find()) {
+                type(advised.group(1)).shadows++;
+                Integer shadows = aspectShadows.get(advised.group(2));
+                aspectShadows.put(advised.group(2), shadows == null ? 1 : shadows + 1);
+            }
+            return !logWeaveInfo || super.handleMessage(message);
+        }
+        if (kind == IMessage.INFO) {
+            boolean profiled = false;
+            Matcher compiling = COMPILING.matcher(text);
+            Matcher woven = WOVEN.matcher(text);
+            if (compiling.matches()) {
+                if (firstCompiling < 0) {
+                    firstCompiling = now;
+                }
+                lastEvent = now;
+            } else if (woven.matches()) {
+                TypeProfile type = type(woven.group(1));
+                type.source = woven.group(2);
+                type.nanos += now - lastEvent;
+                lastWoven = now;
+                lastEvent = now;
+            } else {
+                for (String line : text.split("\\r?\\n")) {
+                    Matcher matching = MATCHING.matcher(line.trim());
+                    if (matching.matches()) {
+                        profiled = true;
+                        PointcutProfile pointcut = pointcuts.get(matching.group(5));
+                        if (pointcut == null) {
+                            pointcut = new PointcutProfile(matching.group(5));
+                            pointcuts.put(pointcut.pointcut, pointcut);
+                        }
+                        long millis = Long.parseLong(matching.group(1));
+                        int calls = Integer.parseInt(matching.group(3));
+                        if (matching.group(4) != null) {
+                            pointcut.fastMatchMillis += millis;
+                            pointcut.fastMatchCalls += calls;
+                        } else {
+                            pointcut.matchMillis += millis;
+                            pointcut.matchCalls += calls;
+                        }
+                    } else if (line.startsWith("Pointcut ") || line.equals("---")) {
+                        profiled = true;
+                    }
+                }
+            }
+            if (profiled || !logVerbose) {
+                return true;
+            }
+        }
+        return super.handleMessage(message);
+    }
+
+    private TypeProfile type(String name) {
+        TypeProfile type = types.get(name);
+        if (type == null) {
+            type = new TypeProfile(name);
+            types.put(name, type);
+        }
+        return type;
+    }
+
+    /**
+     * Marks the end of the compilation.
+     */
+    public synchronized void finish() {
+        finish = System.nanoTime();
+    }
+
+    private long getFinish() {
+        return finish < 0 ? System.nanoTime() : finish;
+    }
+
+    private long getParseNanos() {
+        return (firstCompiling < 0 ? start : firstCompiling) - start;
+    }
+
+    private long getCompileAndWeaveNanos() {
+        return lastWoven < 0 ? 0 : lastWoven - (firstCompiling < 0 ? start : firstCompiling);
+    }
+
+    private long getWriteNanos() {
+        return getFinish() - (lastWoven < 0 ? (firstCompiling < 0 ? start : firstCompiling) : lastWoven);
+    }
+
+    /**
+     * Writes the profile as JSON document.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void writeReport(File file) throws IOException {
+        FileUtils.forceMkdir(file.getAbsoluteFile().getParentFile());
+        try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+            writer.write("{\n");
+            writer.write("  \"totalMillis\": " + millis(getFinish() - start) + ",\n");
+            writer.write("  \"phases\": {\n");
+            writer.write("    \"parseMillis\": " + millis(getParseNanos()) + ",\n");
+            writer.write("    \"compileAndWeaveMillis\": " + millis(getCompileAndWeaveNanos()) + ",\n");
+            writer.write("    \"writeMillis\": " + millis(getWriteNanos()) + "\n");
+            writer.write("  },\n");
+
+            writer.write("  \"aspects\": [");
+            String separator = "\n";
+            for (Map.Entry<String, Integer> aspect : getAspectProfiles().entrySet()) {
+                writer.write(separator + "    {\"aspect\": " + quote(aspect.getKey()) + ", \"shadowsAdvised\": "
+                        + aspect.getValue() + "}");
+                separator = ",\n";
+            }
+            writer.write("\n  ],\n");
+
+            writer.write("  \"pointcuts\": [");
+            separator = "\n";
+            for (PointcutProfile pointcut : getPointcutProfiles()) {
+                writer.write(separator + "    {\"pointcut\": " + quote(pointcut.pointcut) + ", \"aspect\": "
+                        + quote(pointcut.getAspect()) + ", \"matchMillis\": " + pointcut.matchMillis
+                        + ", \"matchCalls\": " + pointcut.matchCalls + ", \"fastMatchMillis\": "
+                        + pointcut.fastMatchMillis + ", \"fastMatchCalls\": " + pointcut.fastMatchCalls + "}");
+                separator = ",\n";
+            }
+            writer.write("\n  ],\n");
+
+            writer.write("  \"types\": [");
+            separator = "\n";
+            for (TypeProfile type : getTypeProfiles()) {
+                writer.write(separator + "    {\"type\": " + quote(type.name) + ", \"source\": " + quote(type.source)
+                        + ", \"millis\": " + millis(type.nanos) + ", \"shadowsAdvised\": " + type.shadows + "}");
+                separator = ",\n";
+            }
+            writer.write("\n  ]\n");
+            writer.write("}\n");
+        }
+    }
+
+    /**
+     * Logs a summary of the profile: the phases, and the most expensive pointcuts and types.
+     */
+    public synchronized void logSummary() {
+        log.info("AspectJ profile: " + millis(getFinish() - start) + " ms total, " + millis(getParseNanos())
+                + " ms parsing, " + millis(getCompileAndWeaveNanos()) + " ms compiling and weaving "
+                + types.size() + " types, " + millis(getWriteNanos()) + " ms writing");
+        List<PointcutProfile> pointcutProfiles = getPointcutProfiles();
+        if (!pointcutProfiles.isEmpty()) {
+            log.info("Most expensive pointcuts (matching ms / calls, fast matching ms / calls):");
+            for (PointcutProfile pointcut :
+                    pointcutProfiles.subList(0, Math.min(SUMMARY_SIZE, pointcutProfiles.size()))) {
+                log.info("  " + pointcut.matchMillis + " / " + pointcut.matchCalls + ", " + pointcut.fastMatchMillis
+                        + " / " + pointcut.fastMatchCalls + "  " + pointcut.pointcut);
+            }
+        }
+        List<TypeProfile> typeProfiles = getTypeProfiles();
+        if (!typeProfiles.isEmpty()) {
+            log.info("Most expensive types (compiling and weaving ms, advised shadows):");
+            for (TypeProfile type : typeProfiles.subList(0, Math.min(SUMMARY_SIZE, typeProfiles.size()))) {
+                log.info("  " + millis(type.nanos) + ", " + type.shadows + "  " + type.name);
+            }
+        }
+        for (Map.Entry<String, Integer> aspect : getAspectProfiles().entrySet()) {
+            log.info("Aspect " + aspect.getKey() + " advised " + aspect.getValue() + " join point shadows");
+        }
+    }
+
+    /**
+     * @return the number of advised shadows per aspect, including the aspects of profiled pointcuts advising none
+     */
+    private Map<String, Integer> getAspectProfiles() {
+        Map<String, Integer> aspects = new TreeMap<>(aspectShadows);
+        for (PointcutProfile pointcut : pointcuts.values()) {
+            String aspect = pointcut.getAspect();
+            if (aspect != null && !aspects.containsKey(aspect)) {
+                aspects.put(aspect, 0);
+            }
+        }
+        return aspects;
+    }
+
+    private List<PointcutProfile> getPointcutProfiles() {
+        List<PointcutProfile> result = new ArrayList<>(pointcuts.values());
+        result.sort(
+                Comparator.comparingLong((PointcutProfile pointcut) -> pointcut.matchMillis + pointcut.fastMatchMillis)
+                        .reversed());
+        return result;
+    }
+
+    private List<TypeProfile> getTypeProfiles() {
+        List<TypeProfile> result = new ArrayList<>(types.values());
+        result.sort(Comparator.comparingLong((TypeProfile type) -> type.nanos).reversed());
+        return result;
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * The profile of a woven type.
+     */
+    private static final class TypeProfile {
+        private final String name;
+
+        private String source;
+
+        private long nanos;
+
+        private int shadows;
+
+        private TypeProfile(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * The matching cost of a pointcut, as reported by {@code -timers}.
+     */
+    private static final class PointcutProfile {
+        private final String pointcut;
+
+        private long matchMillis;
+
+        private long matchCalls;
+
+        private long fastMatchMillis;
+
+        private long fastMatchCalls;
+
+        private PointcutProfile(String pointcut) {
+            this.pointcut = pointcut;
+        }
+
+        /**
+         * @return the aspect declaring the pointcut, if it is a singleton aspect, else {@code null}
+         */
+        private String getAspect() {
+            Matcher aspect = SINGLETON_ASPECT.matcher(pointcut);
+            return aspect.find() ? aspect.group(1) : null;
+        }
+    }
+}
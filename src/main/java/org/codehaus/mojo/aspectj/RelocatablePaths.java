@@ -0,0 +1,150 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Converts the absolute paths in compiler arguments to paths relative to named root directories, e.g.
+ * {@code ${basedir}/src/main/java/Foo.java}, and back. Build state stored with relative paths stays valid when the
+ * project is built in another directory or with another local repository, e.g. on another CI agent or when restored
+ * from a build cache.
+ * <p>
+ * Arguments holding a list of paths, like the classpath, are converted element by element. A path below several roots
+ * is made relative to the most specific one. Relative paths always use {@code /} as separator.
+ *
+ * @since 1.17
+ */
+public class RelocatablePaths {
+
+    private static final Pattern PATH_SEPARATOR = Pattern.compile(Pattern.quote(File.pathSeparator));
+
+    /**
+     * The absolute root paths by their variables, the longest path first.
+     */
+    private final Map<String, String> roots = new LinkedHashMap<>();
+
+    /**
+     * @param roots the root directories by their names, directories which are {@code null} are ignored
+     */
+    public RelocatablePaths(Map<String, File> roots) {
+        List<Map.Entry<String, File>> entries = new ArrayList<>();
+        for (Map.Entry<String, File> root : roots.entrySet()) {
+            if (root.getValue() != null) {
+                entries.add(root);
+            }
+        }
+        entries.sort(Comparator.comparingInt((Map.Entry<String, File> root) ->
+                        root.getValue().getAbsolutePath().length())
+                .reversed());
+        for (Map.Entry<String, File> root : entries) {
+            this.roots.put(
+                    "${" + root.getKey() + "}",
+                    stripTrailingSeparator(root.getValue().getAbsolutePath()));
+        }
+    }
+
+    /**
+     * @param arguments compiler arguments
+     * @return the arguments, with the paths below a root relative to it
+     */
+    public List<String> relativize(List<String> arguments) {
+        List<String> result = new ArrayList<>(arguments.size());
+        for (String argument : arguments) {
+            result.add(relativize(argument));
+        }
+        return result;
+    }
+
+    /**
+     * @param argument a compiler argument, e.g. a path or a list of paths
+     * @return the argument, with the paths below a root relative to it
+     */
+    public String relativize(String argument) {
+        String[] elements = PATH_SEPARATOR.split(argument, -1);
+        for (int i = 0; i < elements.length; i++) {
+            for (Map.Entry<String, String> root : roots.entrySet()) {
+                String path = root.getValue();
+                if (elements[i].equals(path)) {
+                    elements[i] = root.getKey();
+                    break;
+                }
+                if (elements[i].startsWith(path) && elements[i].charAt(path.length()) == File.separatorChar) {
+                    elements[i] =
+                            root.getKey() + elements[i].substring(path.length()).replace(File.separatorChar, '/');
+                    break;
+                }
+            }
+        }
+        return String.join(File.pathSeparator, elements);
+    }
+
+    /**
+     * @param arguments compiler arguments as returned by {@link #relativize(List)}
+     * @return the arguments, with the relative paths resolved against the roots
+     */
+    public List<String> resolve(List<String> arguments) {
+        List<String> result = new ArrayList<>(arguments.size());
+        for (String argument : arguments) {
+            result.add(resolve(argument));
+        }
+        return result;
+    }
+
+    /**
+     * @param argument a compiler argument as returned by {@link #relativize(String)}
+     * @return the argument, with the relative paths resolved against the roots
+     */
+    public String resolve(String argument) {
+        if (!argument.contains("${")) {
+            return argument;
+        }
+        String[] elements = PATH_SEPARATOR.split(argument, -1);
+        for (int i = 0; i < elements.length; i++) {
+            for (Map.Entry<String, String> root : roots.entrySet()) {
+                String variable = root.getKey();
+                if (elements[i].equals(variable)) {
+                    elements[i] = root.getValue();
+                    break;
+                }
+                if (elements[i].startsWith(variable + "/")) {
+                    elements[i] = root.getValue()
+                            + elements[i].substring(variable.length()).replace('/', File.separatorChar);
+                    break;
+                }
+            }
+        }
+        return String.join(File.pathSeparator, elements);
+    }
+
+    private static String stripTrailingSeparator(String path) {
+        return path.length() > 1 && path.endsWith(File.separator) ? path.substring(0, path.length() - 1) : path;
+    }
+}
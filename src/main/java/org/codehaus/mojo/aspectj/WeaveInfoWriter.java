@@ -0,0 +1,211 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.aspectj.bridge.IMessage;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Writes the weave info messages of the AspectJ compiler as table of the advised join points and the type declarations
+ * of the aspects, one row per message, so the weaving of two builds can be compared. The rows are written as they
+ * arrive, either as CSV or, if the file name ends with {@code .json}, as JSON array.
+ * <p>
+ * The columns are the kind of the advice or declaration, the aspect and its source location, the join point, and the
+ * woven type and its source file and line, e.g. for
+ * {@code Join point 'method-execution(void Foo.bar())' in Type 'Foo' (Foo.java:3) advised by before advice from 'A'
+ * (A.aj:4)}: {@code before,A,A.aj:4,method-execution(void Foo.bar()),Foo,Foo.java,3}.
+ *
+ * @since 1.17
+ */
+public class WeaveInfoWriter implements Closeable {
+
+    private static final String[] COLUMNS = {"kind", "aspect", "aspectSource", "joinPoint", "type", "source", "line"};
+
+    private static final Pattern ADVISED = Pattern.compile(
+            "^Join point '(.*)' in Type '([^']+)' \\(([^)]*?)(?::(\\d+))?\\) advised by (\\w+) advice from '([^']+)'"
+                    + " \\(([^)]*)\\)(.*)$",
+            Pattern.DOTALL);
+
+    private static final Pattern TYPE = Pattern.compile("^(?:.*?Type |.*?type )?'([^']+)' \\(([^)]*?)(?::(\\d+))?\\)");
+
+    private static final Pattern ASPECT = Pattern.compile(" from '([^']+)' \\((.*)\\)$|'[^']+' \\(([^)]*)\\)$");
+
+    private static final Pattern RUNTIME_TEST = Pattern.compile("\\[with runtime test\\]");
+
+    private final Writer writer;
+
+    private final boolean json;
+
+    private boolean empty = true;
+
+    /**
+     * Creates the file, replacing an existing file.
+     *
+     * @param file the file to write, as JSON if its name ends with {@code .json}, otherwise as CSV
+     * @throws IOException if the file cannot be created
+     */
+    public WeaveInfoWriter(File file) throws IOException {
+        FileUtils.forceMkdir(file.getAbsoluteFile().getParentFile());
+        json = file.getName().endsWith(".json");
+        writer = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8));
+        if (json) {
+            writer.write("[");
+        } else {
+            writeRow(COLUMNS);
+        }
+    }
+
+    /**
+     * Writes the row of a weave info message.
+     *
+     * @param message a message of kind {@link IMessage#WEAVEINFO}
+     * @throws IOException if the row cannot be written
+     */
+    public synchronized void write(IMessage message) throws IOException {
+        writeRow(parse(message.getMessage() == null ? "" : message.getMessage()));
+    }
+
+    /**
+     * Splits the text of a weave info message into the columns of its row.
+     *
+     * @param text the message text
+     * @return the column values, {@code null} if not applicable
+     */
+    static String[] parse(String text) {
+        String[] row = new String[COLUMNS.length];
+        Matcher advised = ADVISED.matcher(text);
+        if (advised.matches()) {
+            row[0] = RUNTIME_TEST.matcher(advised.group(8)).find()
+                    ? advised.group(5) + " with runtime test"
+                    : advised.group(5);
+            row[1] = advised.group(6);
+            row[2] = advised.group(7);
+            row[3] = advised.group(1);
+            row[4] = advised.group(2);
+            row[5] = advised.group(3);
+            row[6] = advised.group(4);
+            return row;
+        }
+        if (text.contains(" is annotated with ")) {
+            row[0] = "declare annotation";
+        } else if (text.startsWith("Extending interface set") || text.startsWith("Setting superclass")) {
+            row[0] = "declare parents";
+        } else if (text.contains(" has intertyped ")) {
+            row[0] = "intertype";
+        } else if (text.contains("softened")) {
+            row[0] = "declare soft";
+        } else {
+            row[0] = "other";
+        }
+        Matcher type = TYPE.matcher(text);
+        if (type.find()) {
+            row[4] = type.group(1);
+            row[5] = type.group(2);
+            row[6] = type.group(3);
+        }
+        Matcher aspect = ASPECT.matcher(text);
+        if (aspect.find()) {
+            // Declare parents only names the source of the aspect, after the new parent type
+            row[1] = aspect.group(1);
+            row[2] = aspect.group(1) != null ? aspect.group(2) : aspect.group(3);
+        }
+        // The declaration, e.g. the annotation or the intertype member, takes the place of the join point
+        row[3] = text;
+        return row;
+    }
+
+    private void writeRow(String[] row) throws IOException {
+        if (json) {
+            writer.write(empty ? "\n  {" : ",\n  {");
+            for (int i = 0; i < COLUMNS.length; i++) {
+                writer.write((i == 0 ? "\"" : ", \"") + COLUMNS[i] + "\": " + quoteJson(row[i]));
+            }
+            writer.write("}");
+        } else {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(quoteCsv(row[i]));
+            }
+            writer.write("\n");
+        }
+        empty = false;
+    }
+
+    /**
+     * Completes and closes the file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void close() throws IOException {
+        try {
+            if (json) {
+                writer.write(empty ? "]\n" : "\n]\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String quoteCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String quoteJson(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,94 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests class {@link org.codehaus.mojo.aspectj.AbiManifest}
+ */
+public class AbiManifestTest extends TestCase {
+
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = new File("target/abi-manifest").getAbsoluteFile();
+        FileUtils.deleteDirectory(dir);
+    }
+
+    public void testChangedTypes() throws Exception {
+        File classes = CompilerMojoTestBase.compile(
+                dir, "classes", "class A { void run() { } }\nclass B { }\nclass C { }\naspect Trace { }\n");
+        AbiManifest previous = AbiManifest.create(classes, null);
+        File manifestFile = new File(dir, "builddef.lst.main-abi");
+        previous.write(manifestFile);
+        previous = AbiManifest.read(manifestFile);
+        assertTrue(previous.isAspect("Trace"));
+        assertFalse(previous.isAspect("A"));
+
+        FileUtils.deleteDirectory(classes);
+        CompilerMojoTestBase.compile(
+                dir, "classes", "class A { void run() { hashCode(); } }\nclass B { int b; }\nclass D { }\n");
+        AbiManifest current = AbiManifest.create(classes, previous);
+
+        assertEquals(new HashSet<>(Arrays.asList("B", "C", "D", "Trace")), previous.getChangedTypes(current));
+        assertEquals(Collections.emptySet(), current.getChangedTypes(AbiManifest.create(classes, current)));
+    }
+
+    public void testChangedConstants() throws Exception {
+        File classes = CompilerMojoTestBase.compile(dir, "classes", "class A { static final int LIMIT = 1; }");
+        File manifestFile = new File(dir, "builddef.lst.main-abi");
+        AbiManifest.create(classes, null).write(manifestFile);
+        AbiManifest previous = AbiManifest.read(manifestFile);
+
+        FileUtils.deleteDirectory(classes);
+        CompilerMojoTestBase.compile(dir, "classes", "class A { static final int LIMIT = 1; void run() { } }");
+        assertFalse(previous.hasChangedConstants(AbiManifest.create(classes, previous)));
+
+        FileUtils.deleteDirectory(classes);
+        CompilerMojoTestBase.compile(dir, "classes", "class A { static final int LIMIT = 2; }");
+        assertTrue(previous.hasChangedConstants(AbiManifest.create(classes, previous)));
+    }
+
+    public void testAddSubtypes() throws Exception {
+        File classes = CompilerMojoTestBase.compile(
+                dir,
+                "classes",
+                "class A { }\nclass B extends A { }\ninterface I { }\nclass C extends B implements I { }\nclass D { }\n");
+        File manifestFile = new File(dir, "builddef.lst.main-abi");
+        AbiManifest.create(classes, null).write(manifestFile);
+        AbiManifest manifest = AbiManifest.read(manifestFile);
+
+        assertEquals(new HashSet<>(Arrays.asList("A", "B", "C")), manifest.addSubtypes(Collections.singleton("A")));
+        assertEquals(new HashSet<>(Arrays.asList("I", "C")), manifest.addSubtypes(Collections.singleton("I")));
+        assertEquals(Collections.singleton("D"), manifest.addSubtypes(Collections.singleton("D")));
+    }
+}
@@ -24,6 +24,8 @@ package org.codehaus.mojo.aspectj;
  * SOFTWARE.
  */
 import java.io.File;
+import java.util.Collections;
+import java.util.List;
 
 import org.codehaus.plexus.util.FileUtils;
 
@@ -86,7 +88,378 @@ public class AjcCompilerMojoTest extends CompilerMojoTestBase {
                 + "src/test/projects/test-project/src/main/aspect/org/codehaus/mojo/aspectj/OldStyleAspect.aj");
         long timeStamp = System.currentTimeMillis();
         assertTrue("Could not touch file: " + aspect.getAbsolutePath(), aspect.setLastModified(timeStamp));
-        assertTrue("One of the included files has changed. a new build is needed", ajcMojo.isBuildNeeded());
+        assertFalse("An included file was touched, but its content is unchanged", ajcMojo.isBuildNeeded());
+
+        String content = FileUtils.fileRead(aspect);
+        try {
+            FileUtils.fileWrite(aspect, null, content + "\n");
+            assertTrue("One of the included files has changed. a new build is needed", ajcMojo.isBuildNeeded());
+        } finally {
+            FileUtils.fileWrite(aspect, null, content);
+        }
+    }
+
+    /**
+     * @throws Exception on test error
+     */
+    public void testReweaveOnAspectChange() throws Exception {
+        final String[] includes =
+                new String[] {"org/codehaus/mojo/aspectj/Clazz.java", "org/codehaus/mojo/aspectj/OldStyleAspect.aj"};
+        File outputDirectory = new File(project.getBuild().getOutputDirectory());
+        File stagingDirectory = ajcMojo.getStagingDirectory(outputDirectory);
+        addAspectjToolsArtifact();
+        ajcMojo.reweaveOnAspectChange = true;
+        ajcMojo.includes = includes;
+        ajcMojo.execute();
+
+        assertTrue(new File(stagingDirectory, "org/codehaus/mojo/aspectj/Clazz.class").isFile());
+        File wovenClazz = new File(outputDirectory, "org/codehaus/mojo/aspectj/Clazz.class");
+        assertTrue(FileUtils.fileRead(wovenClazz, "ISO-8859-1").contains("OldStyleAspect"));
+        assertFalse(
+                FileUtils.fileRead(new File(stagingDirectory, "org/codehaus/mojo/aspectj/Clazz.class"), "ISO-8859-1")
+                        .contains("OldStyleAspect"));
+
+        File aspect = new File(basedir + "src/main/aspect/org/codehaus/mojo/aspectj/OldStyleAspect.aj");
+        String content = FileUtils.fileRead(aspect);
+        try {
+            FileUtils.fileWrite(aspect, null, content + "\n");
+            ajcMojo.ajcOptions.clear();
+            ajcMojo.includes = includes;
+            ajcMojo.assembleArguments();
+            List<List<String>> compilerRuns = ajcMojo.getReweaveArguments(outputDirectory);
+            assertEquals(2, compilerRuns.size());
+            assertTrue(compilerRuns.get(0).contains(aspect.getAbsolutePath()));
+            assertFalse(compilerRuns
+                    .get(0)
+                    .contains(new File(basedir + "src/main/java/org/codehaus/mojo/aspectj/Clazz.java")
+                            .getAbsolutePath()));
+            assertTrue(compilerRuns.get(0).contains("-XterminateAfterCompilation"));
+            assertFalse(new File(stagingDirectory, "org/codehaus/mojo/aspectj/OldStyleAspect.class").exists());
+            assertTrue(new File(stagingDirectory, "org/codehaus/mojo/aspectj/Clazz.class").isFile());
+
+            ajcMojo.ajcOptions.clear();
+            ajcMojo.includes = includes;
+            ajcMojo.execute();
+            assertTrue(new File(stagingDirectory, "org/codehaus/mojo/aspectj/OldStyleAspect.class").isFile());
+            assertTrue(FileUtils.fileRead(wovenClazz, "ISO-8859-1").contains("OldStyleAspect"));
+        } finally {
+            FileUtils.fileWrite(aspect, null, content);
+        }
+    }
+
+    /**
+     * @throws Exception on test error
+     */
+    public void testProfile() throws Exception {
+        File profileFile = new File(project.getBuild().getDirectory(), "aspectj-profile.json");
+        addAspectjToolsArtifact();
+        setVariableValueToObject(ajcMojo, "profileFile", profileFile);
+        ajcMojo.profile = true;
+        ajcMojo.includes =
+                new String[] {"org/codehaus/mojo/aspectj/Clazz.java", "org/codehaus/mojo/aspectj/OldStyleAspect.aj"};
+        ajcMojo.execute();
+
+        String profile = FileUtils.fileRead(profileFile, "UTF-8");
+        assertTrue(
+                profile,
+                profile.contains(
+                        "{\"aspect\": \"org.codehaus.mojo.aspectj.OldStyleAspect\", " + "\"shadowsAdvised\": 1}"));
+        assertTrue(profile, profile.contains("\"type\": \"org.codehaus.mojo.aspectj.Clazz\""));
+        assertTrue(
+                profile, profile.contains("\"pointcut\": \"(execution(* org.codehaus.mojo.aspectj.Clazz.print(..))"));
+        assertTrue(profile, profile.contains("\"compileAndWeaveMillis\""));
+    }
+
+    public void testKeepUnchangedOutput() throws Exception {
+        final String[] includes =
+                new String[] {"org/codehaus/mojo/aspectj/Clazz.java", "org/codehaus/mojo/aspectj/OldStyleAspect.aj"};
+        File wovenClazz = new File(project.getBuild().getOutputDirectory(), "org/codehaus/mojo/aspectj/Clazz.class");
+        addAspectjToolsArtifact();
+        ajcMojo.keepUnchangedOutput = true;
+        ajcMojo.forceAjcCompile = true;
+        ajcMojo.includes = includes;
+        ajcMojo.execute();
+        assertTrue(wovenClazz.isFile());
+
+        long lastModified = wovenClazz.lastModified() - 60000;
+        assertTrue(wovenClazz.setLastModified(lastModified));
+        ajcMojo.ajcOptions.clear();
+        ajcMojo.includes = includes;
+        ajcMojo.execute();
+        assertEquals(lastModified, wovenClazz.lastModified());
+    }
+
+    public void testParallelWeaving() throws Exception {
+        File weaveDirectory = new File(project.getBuild().getDirectory(), "parallel-weaving");
+        FileUtils.deleteDirectory(weaveDirectory);
+        File clazz = compile(
+                weaveDirectory,
+                "Clazz",
+                "package org.codehaus.mojo.aspectj; public class Clazz { public void print() { } }");
+        File other = compile(weaveDirectory, "Other", "public class Other { }");
+        addAspectjToolsArtifact();
+        ajcMojo.parallelWeaving = true;
+        ajcMojo.weaveDirectories = new String[] {clazz.getPath(), other.getPath()};
+        ajcMojo.includes = new String[] {"org/codehaus/mojo/aspectj/OldStyleAspect.aj"};
+        ajcMojo.execute();
+
+        File outputDirectory = new File(project.getBuild().getOutputDirectory());
+        File wovenClazz = new File(outputDirectory, "org/codehaus/mojo/aspectj/Clazz.class");
+        assertTrue(FileUtils.fileRead(wovenClazz, "ISO-8859-1").contains("OldStyleAspect"));
+        assertTrue(new File(outputDirectory, "Other.class").isFile());
+        assertTrue(new File(outputDirectory, "org/codehaus/mojo/aspectj/OldStyleAspect.class").isFile());
+        assertFalse(new File(outputDirectory.getParentFile(), outputDirectory.getName() + "-partitions").exists());
+    }
+
+    public void testFilteredWeaveDirectoriesWithSameName() throws Exception {
+        File weaveDirectory = new File(project.getBuild().getDirectory(), "same-name-weaving");
+        FileUtils.deleteDirectory(weaveDirectory);
+        File moduleA = compile(
+                new File(weaveDirectory, "moduleA"),
+                "classes",
+                "package org.codehaus.mojo.aspectj; class Clazz { void print() { } }");
+        File moduleB = compile(new File(weaveDirectory, "moduleB"), "classes", "package other; class Other { }");
+        addAspectjToolsArtifact();
+        ajcMojo.weaveDirectories = new String[] {moduleA.getPath(), moduleB.getPath()};
+        ajcMojo.weaveDirectoryExcludes = new String[] {"**/Excluded.class"};
+        ajcMojo.includes = new String[] {"org/codehaus/mojo/aspectj/OldStyleAspect.aj"};
+        ajcMojo.execute();
+
+        File outputDirectory = new File(project.getBuild().getOutputDirectory());
+        File wovenClazz = new File(outputDirectory, "org/codehaus/mojo/aspectj/Clazz.class");
+        assertTrue(wovenClazz.isFile());
+        assertTrue(FileUtils.fileRead(wovenClazz, "ISO-8859-1").contains("OldStyleAspect"));
+        assertTrue(new File(outputDirectory, "other/Other.class").isFile());
+    }
+
+    public void testWeaveInfoReport() throws Exception {
+        File weaveInfoFile = new File(project.getBuild().getDirectory(), "aspectj-weave-info.csv");
+        addAspectjToolsArtifact();
+        setVariableValueToObject(ajcMojo, "weaveInfoFile", weaveInfoFile);
+        ajcMojo.weaveInfoReport = true;
+        ajcMojo.includes =
+                new String[] {"org/codehaus/mojo/aspectj/Clazz.java", "org/codehaus/mojo/aspectj/OldStyleAspect.aj"};
+        ajcMojo.execute();
+
+        List<String> rows = FileUtils.loadFile(weaveInfoFile);
+        assertEquals(rows.toString(), 2, rows.size());
+        assertEquals("kind,aspect,aspectSource,joinPoint,type,source,line", rows.get(0));
+        assertTrue(rows.get(1), rows.get(1).startsWith("before,org.codehaus.mojo.aspectj.OldStyleAspect,"));
+        assertTrue(rows.get(1), rows.get(1).contains(",org.codehaus.mojo.aspectj.Clazz,Clazz.java,"));
+    }
+
+    public void testIncremental() throws Exception {
+        File sourceDirectory = new File(project.getBuild().getDirectory(), "incremental-sources");
+        File first = writeSource(sourceDirectory, "First", "class First { void run() { } }");
+        File second = writeSource(sourceDirectory, "Second", "class Second { void run() { } }");
+        writeSource(sourceDirectory, "Third", "class Third { void run() { } }");
+        File aspect = writeSource(
+                sourceDirectory,
+                "Tracing",
+                "aspect Tracing { before() : execution(void *.run()) { System.out.println(\"run\"); } }");
+        project.addCompileSourceRoot(sourceDirectory.getAbsolutePath());
+        final String[] includes = new String[] {"incremental/**"};
+        File outputDirectory = new File(project.getBuild().getOutputDirectory());
+        File firstClass = new File(outputDirectory, "incremental/First.class");
+        File secondClass = new File(outputDirectory, "incremental/Second.class");
+        addAspectjToolsArtifact();
+        ajcMojo.incremental = true;
+        ajcMojo.includes = includes;
+        ajcMojo.execute();
+        assertTrue(FileUtils.fileRead(secondClass, "ISO-8859-1").contains("Tracing"));
+
+        long lastModified = firstClass.lastModified() - 60000;
+        assertTrue(firstClass.setLastModified(lastModified));
+        FileUtils.fileWrite(second, "UTF-8", "package incremental; class Second { void run() { } void other() { } }");
+        ajcMojo.ajcOptions.clear();
+        ajcMojo.includes = includes;
+        ajcMojo.assembleArguments();
+        List<String> arguments = ajcMojo.getIncrementalArguments(outputDirectory);
+        assertNotNull(arguments);
+        assertTrue(arguments.contains(second.getAbsolutePath()));
+        assertFalse(arguments.contains(first.getAbsolutePath()));
+        assertFalse(arguments.contains(aspect.getAbsolutePath()));
+
+        List<String> log = recordLog();
+        ajcMojo.ajcOptions.clear();
+        ajcMojo.includes = includes;
+        ajcMojo.execute();
+        assertTrue(log.toString(), log.contains("Incremental build: compiling and weaving 1 of 4 sources"));
+        assertEquals(lastModified, firstClass.lastModified());
+        String wovenSecond = FileUtils.fileRead(secondClass, "ISO-8859-1");
+        assertTrue(wovenSecond.contains("other"));
+        assertTrue(wovenSecond.contains("Tracing"));
+    }
+
+    public void testIsolatedCompiler() throws Exception {
+        File wovenClazz = new File(project.getBuild().getOutputDirectory(), "org/codehaus/mojo/aspectj/Clazz.class");
+        addAspectjToolsArtifact();
+        ajcMojo.isolatedCompiler = true;
+        ajcMojo.includes =
+                new String[] {"org/codehaus/mojo/aspectj/Clazz.java", "org/codehaus/mojo/aspectj/OldStyleAspect.aj"};
+        List<String> log = recordLog();
+        ajcMojo.execute();
+
+        assertTrue(log.toString(), log.contains("Running an isolated AspectJ compiler"));
+        assertTrue(FileUtils.fileRead(wovenClazz, "ISO-8859-1").contains("OldStyleAspect"));
+    }
+
+    public void testReuseCompilers() throws Exception {
+        final String[] includes =
+                new String[] {"org/codehaus/mojo/aspectj/Clazz.java", "org/codehaus/mojo/aspectj/OldStyleAspect.aj"};
+        File wovenClazz = new File(project.getBuild().getOutputDirectory(), "org/codehaus/mojo/aspectj/Clazz.class");
+        IsolatedAjcCompilerPool pool = IsolatedAjcCompilerPool.getInstance();
+        int idleCompilers = pool.getIdleCount();
+        addAspectjToolsArtifact();
+        ajcMojo.reuseCompilers = true;
+        ajcMojo.forceAjcCompile = true;
+        ajcMojo.includes = includes;
+        List<String> log = recordLog();
+        try {
+            ajcMojo.execute();
+            assertEquals("The compiler is kept", idleCompilers + 1, pool.getIdleCount());
+            assertTrue(FileUtils.fileRead(wovenClazz, "ISO-8859-1").contains("OldStyleAspect"));
+
+            assertTrue(wovenClazz.delete());
+            ajcMojo.ajcOptions.clear();
+            ajcMojo.includes = includes;
+            ajcMojo.execute();
+            assertEquals("The kept compiler is reused", idleCompilers + 1, pool.getIdleCount());
+            assertEquals(log.toString(), 2, Collections.frequency(log, "Running a pooled AspectJ compiler"));
+            assertTrue(FileUtils.fileRead(wovenClazz, "ISO-8859-1").contains("OldStyleAspect"));
+        } finally {
+            while (pool.getIdleCount() > idleCompilers) {
+                pool.borrow().close();
+            }
+        }
+    }
+
+    public void testFork() throws Exception {
+        File wovenClazz = new File(project.getBuild().getOutputDirectory(), "org/codehaus/mojo/aspectj/Clazz.class");
+        addAspectjToolsArtifact();
+        ajcMojo.fork = true;
+        ajcMojo.maxmem = "128m";
+        ajcMojo.includes =
+                new String[] {"org/codehaus/mojo/aspectj/Clazz.java", "org/codehaus/mojo/aspectj/OldStyleAspect.aj"};
+        List<String> log = recordLog();
+        ajcMojo.execute();
+
+        assertTrue(log.toString(), log.contains("Forking AspectJ compiler with JVM options [-Xmx128m]"));
+        assertTrue(FileUtils.fileRead(wovenClazz, "ISO-8859-1").contains("OldStyleAspect"));
+    }
+
+    public void testBuildCache() throws Exception {
+        final String[] includes =
+                new String[] {"org/codehaus/mojo/aspectj/Clazz.java", "org/codehaus/mojo/aspectj/OldStyleAspect.aj"};
+        File cacheDirectory = new File(project.getBuild().getDirectory(), "aspectj-build-cache");
+        File outputDirectory = new File(project.getBuild().getOutputDirectory());
+        File wovenClazz = new File(outputDirectory, "org/codehaus/mojo/aspectj/Clazz.class");
+        addAspectjToolsArtifact();
+        File weaveInfoFile = new File(project.getBuild().getDirectory(), "aspectj-weave-info.csv");
+        setVariableValueToObject(ajcMojo, "weaveInfoFile", weaveInfoFile);
+        ajcMojo.weaveInfoReport = true;
+        ajcMojo.buildCache = cacheDirectory.getAbsolutePath();
+        ajcMojo.includes = includes;
+        List<String> log = recordLog();
+        ajcMojo.execute();
+        assertTrue(
+                log.toString(), log.stream().anyMatch(message -> message.startsWith("Stored AspectJ compiler output")));
+        assertTrue(weaveInfoFile.isFile());
+
+        FileUtils.deleteDirectory(outputDirectory);
+        log.clear();
+        ajcMojo.ajcOptions.clear();
+        ajcMojo.includes = includes;
+        ajcMojo.execute();
+        assertTrue(
+                log.toString(),
+                log.stream().anyMatch(message -> message.startsWith("Restored AspectJ compiler output")));
+        assertTrue(FileUtils.fileRead(wovenClazz, "ISO-8859-1").contains("OldStyleAspect"));
+        assertFalse("The report of another build is not kept", weaveInfoFile.exists());
+    }
+
+    public void testBuildCacheWithFilteredInpath() throws Exception {
+        File weaveDirectory = new File(project.getBuild().getDirectory(), "cached-weaving");
+        FileUtils.deleteDirectory(weaveDirectory);
+        File classes = compile(
+                weaveDirectory,
+                "Clazz",
+                "package org.codehaus.mojo.aspectj; public class Clazz { public void print() { } }");
+        final String[] includes = new String[] {"org/codehaus/mojo/aspectj/OldStyleAspect.aj"};
+        File outputDirectory = new File(project.getBuild().getOutputDirectory());
+        File wovenClazz = new File(outputDirectory, "org/codehaus/mojo/aspectj/Clazz.class");
+        addAspectjToolsArtifact();
+        ajcMojo.buildCache = new File(project.getBuild().getDirectory(), "aspectj-build-cache").getAbsolutePath();
+        ajcMojo.weaveDirectories = new String[] {classes.getPath()};
+        ajcMojo.weaveDirectoryExcludes = new String[] {"**/Excluded.class"};
+        ajcMojo.includes = includes;
+        List<String> log = recordLog();
+        ajcMojo.execute();
+        assertTrue(FileUtils.fileRead(wovenClazz, "ISO-8859-1").contains("OldStyleAspect"));
+
+        // The classes staged by the previous build do not change the key
+        FileUtils.deleteDirectory(outputDirectory);
+        log.clear();
+        ajcMojo.ajcOptions.clear();
+        ajcMojo.includes = includes;
+        ajcMojo.execute();
+        assertTrue(
+                log.toString(),
+                log.stream().anyMatch(message -> message.startsWith("Restored AspectJ compiler output")));
+
+        compile(
+                weaveDirectory,
+                "Clazz",
+                "package org.codehaus.mojo.aspectj; public class Clazz { public void print() { } void changed() { } }");
+        FileUtils.deleteDirectory(outputDirectory);
+        log.clear();
+        ajcMojo.ajcOptions.clear();
+        ajcMojo.includes = includes;
+        ajcMojo.execute();
+        assertFalse(
+                log.toString(),
+                log.stream().anyMatch(message -> message.startsWith("Restored AspectJ compiler output")));
+        String woven = FileUtils.fileRead(wovenClazz, "ISO-8859-1");
+        assertTrue(woven.contains("changed"));
+        assertTrue(woven.contains("OldStyleAspect"));
+    }
+
+    public void testWeaveInfoReportOfIncrementalBuild() throws Exception {
+        File sourceDirectory = new File(project.getBuild().getDirectory(), "incremental-sources");
+        File first = writeSource(sourceDirectory, "First", "class First { void run() { } }");
+        writeSource(sourceDirectory, "Second", "class Second { void run() { } }");
+        writeSource(sourceDirectory, "Third", "class Third { void run() { } }");
+        writeSource(sourceDirectory, "Tracing", "aspect Tracing { before() : execution(void *.run()) { } }");
+        project.addCompileSourceRoot(sourceDirectory.getAbsolutePath());
+        final String[] includes = new String[] {"incremental/**"};
+        File weaveInfoFile = new File(project.getBuild().getDirectory(), "aspectj-weave-info.csv");
+        addAspectjToolsArtifact();
+        setVariableValueToObject(ajcMojo, "weaveInfoFile", weaveInfoFile);
+        ajcMojo.weaveInfoReport = true;
+        ajcMojo.incremental = true;
+        ajcMojo.includes = includes;
+        ajcMojo.execute();
+        assertEquals(4, FileUtils.loadFile(weaveInfoFile).size());
+
+        FileUtils.fileWrite(first, "UTF-8", "package incremental; class First { void run() { } void other() { } }");
+        List<String> log = recordLog();
+        ajcMojo.ajcOptions.clear();
+        ajcMojo.includes = includes;
+        ajcMojo.execute();
+        assertTrue(log.toString(), log.contains("Incremental build: compiling and weaving 1 of 4 sources"));
+        assertFalse("The report of a partial weave is not kept", weaveInfoFile.exists());
+    }
+
+    private static File writeSource(File sourceDirectory, String name, String content) throws Exception {
+        File source =
+                new File(sourceDirectory, "incremental/" + name + (content.startsWith("aspect") ? ".aj" : ".java"));
+        FileUtils.forceMkdir(source.getParentFile());
+        FileUtils.fileWrite(source, "UTF-8", "package incremental; " + content);
+        return source;
+    }
+
+    private void addAspectjToolsArtifact() throws Exception {
+        project.setArtifacts(Collections.singleton(createAspectjToolsArtifact()));
     }
 
     String getProjectName() {
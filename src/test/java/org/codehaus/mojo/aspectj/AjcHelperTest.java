@@ -25,9 +25,12 @@ package org.codehaus.mojo.aspectj;
  */
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import junit.framework.TestCase;
 import org.apache.maven.artifact.DefaultArtifact;
@@ -56,6 +59,50 @@ public class AjcHelperTest extends TestCase {
         assertTrue(sources.isEmpty());
     }
 
+    public void testGetSourcesOfSourceDirs() throws Exception {
+        File dir = new File("target/source-dirs").getAbsoluteFile();
+        FileUtils.deleteDirectory(dir);
+        String[] files = {
+            "main/foo/B.java",
+            "main/foo/A.java",
+            "main/foo/Asp.aj",
+            "main/foo/readme.txt",
+            "main/skip/C.java",
+            "generated/bar/E.java",
+            "generated/bar/skip/F.java"
+        };
+        for (String file : files) {
+            File source = new File(dir, file);
+            source.getParentFile().mkdirs();
+            FileUtils.fileWrite(source, null, "");
+        }
+        List<String> sourceDirs = Arrays.asList(
+                new File(dir, "main").getPath(), new File(dir, "generated").getPath(), new File(dir, "none").getPath());
+        String[] excludes = {"**/skip/"};
+
+        Set<String> sources = AjcHelper.getBuildFilesForSourceDirs(sourceDirs, null, excludes);
+        assertEquals(
+                Arrays.asList(
+                        new File(dir, "main/foo/A.java").getPath(),
+                        new File(dir, "main/foo/Asp.aj").getPath(),
+                        new File(dir, "main/foo/B.java").getPath(),
+                        new File(dir, "generated/bar/E.java").getPath()),
+                new ArrayList<>(sources));
+
+        Set<String> scannerSources = new HashSet<>();
+        for (String sourceDir : sourceDirs.subList(0, 2)) {
+            scannerSources.addAll(FileUtils.getFileNames(
+                    new File(sourceDir), AjcHelper.DEFAULT_INCLUDES, AjcHelper.getAsCsv(excludes), true));
+        }
+        assertEquals(scannerSources, sources);
+
+        Set<String> javaSources =
+                AjcHelper.getBuildFilesForSourceDirs(sourceDirs, new String[] {"foo/*.java"}, new String[0]);
+        assertEquals(
+                Arrays.asList(new File(dir, "main/foo/A.java").getPath(), new File(dir, "main/foo/B.java").getPath()),
+                new ArrayList<>(javaSources));
+    }
+
     public void testBuildConfigFile() {
         final File baseDir = new File(".");
         final String fileName = "test.lst";
@@ -105,6 +152,59 @@ public class AjcHelperTest extends TestCase {
         assertFalse("wrong dependency order in " + classPath, classPath.contains("repository"));
     }
 
+    public void testClassPathOfSharedArtifacts() {
+        DefaultArtifact jar = createFixedArtifact();
+        jar.setFile(new File("/repository/shared.jar"));
+        DefaultArtifact pom = new DefaultArtifact("group", "parent", "1.0", "compile", "pom", "classifier", null);
+        pom.setFile(new File("/repository/parent.pom"));
+
+        MavenProject project = new MavenProject();
+        project.setArtifacts(new LinkedHashSet<>(Arrays.asList(jar, pom)));
+        MavenProject otherProject = new MavenProject();
+        otherProject.setArtifacts(Collections.singleton(jar));
+
+        String jarPath = jar.getFile().getAbsolutePath();
+        assertEquals(
+                jarPath + File.pathSeparator + "classes",
+                AjcHelper.createClassPath(project, null, Collections.singletonList("classes")));
+        assertEquals(
+                jarPath + File.pathSeparator + "test-classes" + File.pathSeparator + "classes",
+                AjcHelper.createClassPath(otherProject, null, Arrays.asList("test-classes", "classes")));
+        assertEquals(jarPath, AjcHelper.createClassPath(otherProject, null, Collections.emptyList()));
+    }
+
+    public void testIsAspectSource() throws Exception {
+        File dir = new File("target/aspect-sources");
+        dir.mkdirs();
+        File codeStyle = new File(dir, "CodeStyle.java");
+        FileUtils.fileWrite(codeStyle, null, "package foo;\n\npublic privileged aspect CodeStyle {\n}\n");
+        File annotationStyle = new File(dir, "AnnotationStyle.java");
+        FileUtils.fileWrite(annotationStyle, null, "package foo;\n\n@Aspect\npublic class AnnotationStyle {\n}\n");
+        File plain = new File(dir, "Plain.java");
+        FileUtils.fileWrite(plain, null, "package foo;\n\n// not an aspect of anything\npublic class Plain {\n}\n");
+
+        assertTrue(AjcHelper.isAspectSource(codeStyle, null));
+        assertTrue(AjcHelper.isAspectSource(annotationStyle, null));
+        assertFalse(AjcHelper.isAspectSource(plain, null));
+    }
+
+    public void testGetReferringSources() throws Exception {
+        File dir = new File("target/referring-sources");
+        dir.mkdirs();
+        File changed = new File(dir, "Changed.java");
+        FileUtils.fileWrite(changed, null, "public class Changed {\n}\n");
+        File referring = new File(dir, "Referring.java");
+        FileUtils.fileWrite(referring, null, "public class Referring {\n  Changed changed;\n}\n");
+        File unrelated = new File(dir, "Unrelated.java");
+        FileUtils.fileWrite(unrelated, null, "public class Unrelated {\n  UnChanged unChanged;\n}\n");
+
+        Set<String> sources = new LinkedHashSet<>(
+                Arrays.asList(changed.getAbsolutePath(), referring.getAbsolutePath(), unrelated.getAbsolutePath()));
+        Set<String> referringSources =
+                AjcHelper.getReferringSources(sources, Collections.singleton(changed.getAbsolutePath()), null);
+        assertEquals(Collections.singleton(referring.getAbsolutePath()), referringSources);
+    }
+
     private static DefaultArtifact createFixedArtifact() {
         return new DefaultArtifact("group", "artifact", "1.0-SNAPSHOT", "compile", "type", "classifier", null);
     }
@@ -0,0 +1,242 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.testing.AbstractMojoTestCase;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests class {@link org.codehaus.mojo.aspectj.AjcReportMojo}
+ */
+public class AjcReportMojoTest extends AbstractMojoTestCase {
+
+    public void testGroupSources() {
+        Map<String, String> packages = new LinkedHashMap<>();
+        packages.put("core/A.java", "com.example.core");
+        packages.put("core/impl/B.java", "com.example.core.impl");
+        packages.put("util/C.java", "com.example.util");
+        packages.put("utility/D.java", "com.example.utility");
+        packages.put("E.java", "");
+
+        List<AjcReportMojo.PackageGroup> groups = AjcReportMojo.groupSources(
+                packages, new String[] {"com.example.core*", "com.example.util", "com.example.none"});
+
+        assertEquals(3, groups.size());
+        assertEquals("group-1", groups.get(0).getDirectory());
+        assertEquals(
+                Arrays.asList("core/A.java", "core/impl/B.java"), groups.get(0).getSources());
+        assertEquals(Collections.singletonList("util/C.java"), groups.get(1).getSources());
+        assertEquals("group-4", groups.get(2).getDirectory());
+        assertEquals(Arrays.asList("utility/D.java", "E.java"), groups.get(2).getSources());
+        assertEquals(
+                Arrays.asList("", "com.example.utility"),
+                Arrays.asList(groups.get(2).getPackages().toArray()));
+    }
+
+    public void testBatchSources() {
+        Map<String, String> packages = new LinkedHashMap<>();
+        packages.put("b/B1.java", "b");
+        packages.put("a/A1.java", "a");
+        packages.put("c/C1.java", "c");
+        packages.put("c/C2.java", "c");
+        packages.put("c/C3.java", "c");
+        packages.put("a/A2.java", "a");
+
+        List<AjcReportMojo.PackageGroup> groups = AjcReportMojo.groupSources(packages, new String[0]);
+        assertEquals(1, groups.size());
+        List<AjcReportMojo.PackageGroup> batches = AjcReportMojo.batchSources(groups, packages, 3);
+
+        assertEquals(2, batches.size());
+        assertEquals("group-1-1", batches.get(0).getDirectory());
+        assertEquals(
+                Arrays.asList("a/A1.java", "a/A2.java", "b/B1.java"),
+                batches.get(0).getSources());
+        assertEquals(
+                Arrays.asList("a", "b"),
+                Arrays.asList(batches.get(0).getPackages().toArray()));
+        assertEquals("group-1-2", batches.get(1).getDirectory());
+        assertEquals(
+                Arrays.asList("c/C1.java", "c/C2.java", "c/C3.java"),
+                batches.get(1).getSources());
+
+        // a package larger than the batch size is not split
+        batches = AjcReportMojo.batchSources(groups, packages, 2);
+        assertEquals(3, batches.size());
+        assertEquals(3, batches.get(2).getSources().size());
+
+        assertSame(
+                groups.get(0), AjcReportMojo.batchSources(groups, packages, 6).get(0));
+    }
+
+    public void testGroupedReport() throws Exception {
+        File dir = new File("target/report-groups").getAbsoluteFile();
+        File sources = new File(dir, "src/main/java");
+        File outputDirectory = new File(dir, "target/site/aspectj-report");
+        AjcReportMojo mojo = createMojo(dir);
+        setVariableValueToObject(mojo, "packageGroups", new String[] {"core"});
+        setVariableValueToObject(mojo, "reportThreads", 2);
+        mojo.executeReport(Locale.ENGLISH);
+
+        assertTrue(new File(outputDirectory, "group-1/core/Service.html").isFile());
+        assertTrue(new File(outputDirectory, "group-2/util/Trace.html").isFile());
+        String index = FileUtils.fileRead(new File(outputDirectory, "index.html"), "UTF-8");
+        assertTrue(index, index.contains("<a href=\"group-1/core/package-summary.html\">core</a>"));
+        assertTrue(index, index.contains("<a href=\"group-2/util/package-summary.html\">util</a>"));
+
+        // Unchanged groups are not generated again
+        setVariableValueToObject(mojo, "incrementalReport", true);
+        mojo.executeReport(Locale.ENGLISH);
+        File coreMarker = new File(outputDirectory, "group-1/marker");
+        File utilMarker = new File(outputDirectory, "group-2/marker");
+        FileUtils.fileWrite(coreMarker, "UTF-8", "kept");
+        FileUtils.fileWrite(utilMarker, "UTF-8", "kept");
+        mojo.executeReport(Locale.ENGLISH);
+        assertTrue(coreMarker.isFile());
+        assertTrue(utilMarker.isFile());
+
+        // A group whose report is missing is generated again
+        FileUtils.deleteDirectory(new File(outputDirectory, "group-2"));
+        mojo.executeReport(Locale.ENGLISH);
+        assertTrue(coreMarker.isFile());
+        assertTrue(new File(outputDirectory, "group-2/util/Trace.html").isFile());
+
+        // The pages of a group may show the types of other groups, so all groups are generated again
+        FileUtils.fileWrite(utilMarker, "UTF-8", "kept");
+        FileUtils.fileWrite(
+                new File(sources, "util/Trace.aj"),
+                "UTF-8",
+                "package util; public aspect Trace { after(): execution(* *(..)) && within(Trace) { } }");
+        mojo.executeReport(Locale.ENGLISH);
+        assertFalse(coreMarker.exists());
+        assertFalse(utilMarker.exists());
+        assertTrue(new File(outputDirectory, "group-1/core/Service.html").isFile());
+        assertTrue(new File(outputDirectory, "group-2/util/Trace.html").isFile());
+    }
+
+    public void testIncrementalReport() throws Exception {
+        File dir = new File("target/report-incremental").getAbsoluteFile();
+        File sources = new File(dir, "src/main/java");
+        File index = new File(dir, "target/site/aspectj-report/index.html");
+        AjcReportMojo mojo = createMojo(dir);
+        setVariableValueToObject(mojo, "incrementalReport", true);
+        mojo.executeReport(Locale.ENGLISH);
+        assertTrue(new File(dir, "target/site/aspectj-report/core/Service.html").isFile());
+        assertTrue(new File(dir, "target/ajdoc-report.fingerprint").isFile());
+
+        long generated = System.currentTimeMillis() - 60000;
+        assertTrue(index.setLastModified(generated));
+        mojo.executeReport(Locale.ENGLISH);
+        assertEquals(generated, index.lastModified());
+
+        FileUtils.fileWrite(
+                new File(sources, "core/Service.java"), "UTF-8", "package core; public class Service { int calls; }");
+        mojo.executeReport(Locale.ENGLISH);
+        assertTrue(index.lastModified() > generated);
+
+        // The grouped report replaces the index, so switching back generates the report again
+        setVariableValueToObject(mojo, "packageGroups", new String[] {"core"});
+        mojo.executeReport(Locale.ENGLISH);
+        assertTrue(FileUtils.fileRead(index, "UTF-8").contains("group-1/core/package-summary.html"));
+        setVariableValueToObject(mojo, "packageGroups", null);
+        mojo.executeReport(Locale.ENGLISH);
+        assertFalse(FileUtils.fileRead(index, "UTF-8").contains("group-1/core/package-summary.html"));
+    }
+
+    public void testGroupsResolveTypesOfOtherGroups() throws Exception {
+        File dir = new File("target/report-group-references").getAbsoluteFile();
+        File outputDirectory = new File(dir, "target/site/aspectj-report");
+        AjcReportMojo mojo = createMojo(dir);
+        File sources = new File(dir, "src/main/java");
+        FileUtils.fileWrite(new File(sources, "util/Base.java"), "UTF-8", "package util; public class Base { }");
+        FileUtils.fileWrite(
+                new File(sources, "core/Service.java"),
+                "UTF-8",
+                "package core; public class Service extends util.Base { util.Base base; }");
+        setVariableValueToObject(mojo, "packageGroups", new String[] {"core"});
+        // No compiled classes, as with a plain mvn site
+        assertFalse(new File(dir, "target/classes").exists());
+        mojo.executeReport(Locale.ENGLISH);
+
+        String service = FileUtils.fileRead(new File(outputDirectory, "group-1/core/Service.html"), "UTF-8");
+        assertTrue(service, service.contains("util.Base"));
+        assertFalse(new File(outputDirectory, "group-1/util/Base.html").exists());
+        assertTrue(new File(outputDirectory, "group-2/util/Base.html").isFile());
+    }
+
+    public void testBatchedReport() throws Exception {
+        File dir = new File("target/report-batches").getAbsoluteFile();
+        File outputDirectory = new File(dir, "target/site/aspectj-report");
+        AjcReportMojo mojo = createMojo(dir);
+        setVariableValueToObject(mojo, "reportBatchSize", 1);
+        mojo.executeReport(Locale.ENGLISH);
+
+        assertTrue(new File(outputDirectory, "group-1-1/core/Service.html").isFile());
+        assertFalse(new File(outputDirectory, "group-1-2/core/Service.html").exists());
+        // the aspects are documented with every batch
+        assertTrue(new File(outputDirectory, "group-1-1/util/Trace.html").isFile());
+        assertTrue(new File(outputDirectory, "group-1-2/util/Trace.html").isFile());
+        String index = FileUtils.fileRead(new File(outputDirectory, "index.html"), "UTF-8");
+        assertTrue(index, index.contains("<a href=\"group-1-1/core/package-summary.html\">core</a>"));
+        assertFalse(index, index.contains("group-1-1/util/package-summary.html"));
+        assertTrue(index, index.contains("<a href=\"group-1-2/util/package-summary.html\">util</a>"));
+    }
+
+    private AjcReportMojo createMojo(File dir) throws Exception {
+        FileUtils.deleteDirectory(dir);
+        File sources = new File(dir, "src/main/java");
+        FileUtils.forceMkdir(new File(sources, "core"));
+        FileUtils.forceMkdir(new File(sources, "util"));
+        FileUtils.fileWrite(new File(sources, "core/Service.java"), "UTF-8", "package core; public class Service { }");
+        FileUtils.fileWrite(
+                new File(sources, "util/Trace.aj"),
+                "UTF-8",
+                "package util; public aspect Trace { before(): execution(* *(..)) && within(Trace) { } }");
+
+        MavenProject project = new MavenProject(new Model());
+        project.setName("Report");
+        project.getBuild().setDirectory(new File(dir, "target").getPath());
+        project.getBuild().setOutputDirectory(new File(dir, "target/classes").getPath());
+        project.getBuild().setTestOutputDirectory(new File(dir, "target/test-classes").getPath());
+        project.addCompileSourceRoot(sources.getPath());
+        project.setDependencyArtifacts(Collections.emptySet());
+
+        AjcReportMojo mojo = new AjcReportMojo();
+        setVariableValueToObject(mojo, "project", project);
+        setVariableValueToObject(mojo, "basedir", dir);
+        setVariableValueToObject(mojo, "outputDirectory", new File(dir, "target/site/aspectj-report"));
+        setVariableValueToObject(mojo, "buildDirectory", new File(dir, "target"));
+        mojo.setPluginArtifacts(Collections.singletonList(CompilerMojoTestBase.createAspectjToolsArtifact()));
+        return mojo;
+    }
+}
@@ -1,6 +1,12 @@
 package org.codehaus.mojo.aspectj;
 
+import java.io.File;
+import java.util.Collections;
+
+import org.apache.maven.model.Model;
 import org.apache.maven.plugin.testing.AbstractMojoTestCase;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
 
 public class AjcTestCompileMojoTest extends AbstractMojoTestCase {
 
@@ -20,4 +26,128 @@ public class AjcTestCompileMojoTest extends AbstractMojoTestCase {
             // and no setup has been done.
         }
     }
+
+    public void testIncrementalIgnoresMainBodyChanges() throws Exception {
+        File dir = new File("target/test-compile-incremental").getAbsoluteFile();
+        FileUtils.deleteDirectory(dir);
+        CompilerMojoTestBase.compile(dir, "Service", "package main; public class Service { public void run() { } }");
+        writeTestSource(
+                dir,
+                "tests/UsesService.java",
+                "package tests; public class UsesService { void test() { new main.Service().run(); } }");
+        writeTestSource(dir, "tests/Other.java", "package tests; public class Other { }");
+        File testClasses = new File(dir, "test-classes");
+        File usesService = new File(testClasses, "tests/UsesService.class");
+        File other = new File(testClasses, "tests/Other.class");
+        MavenProject project = createProject(dir);
+
+        createMojo(project, dir).execute();
+        assertTrue(usesService.isFile());
+        assertTrue(new File(testClasses, "builddef.lst.main-abi").isFile());
+
+        // Only the body of a main method changed
+        long compiled = System.currentTimeMillis() - 60000;
+        usesService.setLastModified(compiled);
+        other.setLastModified(compiled);
+        CompilerMojoTestBase.compile(
+                dir, "Service", "package main; public class Service { public void run() { hashCode(); } }");
+        createMojo(project, dir).execute();
+        assertEquals(compiled, usesService.lastModified());
+        assertEquals(compiled, other.lastModified());
+
+        // The signature of a main method changed
+        CompilerMojoTestBase.compile(
+                dir, "Service", "package main; public class Service { public int run() { return 1; } }");
+        createMojo(project, dir).execute();
+        assertTrue(usesService.lastModified() > compiled);
+        assertEquals(compiled, other.lastModified());
+    }
+
+    public void testIncrementalRecompilesAllOnConstantChange() throws Exception {
+        File dir = new File("target/test-compile-incremental-constant").getAbsoluteFile();
+        FileUtils.deleteDirectory(dir);
+        CompilerMojoTestBase.compile(
+                dir, "Service", "package main; public class Service { public static final int LIMIT = 1; }");
+        // The constant is inlined, the test class does not refer to the Service class
+        writeTestSource(
+                dir,
+                "tests/UsesLimit.java",
+                "package tests; public class UsesLimit { int limit = main.Service.LIMIT; }");
+        File usesLimit = new File(dir, "test-classes/tests/UsesLimit.class");
+        MavenProject project = createProject(dir);
+
+        createMojo(project, dir).execute();
+        long compiled = System.currentTimeMillis() - 60000;
+        usesLimit.setLastModified(compiled);
+        CompilerMojoTestBase.compile(
+                dir, "Service", "package main; public class Service { public static final int LIMIT = 2; }");
+        createMojo(project, dir).execute();
+        assertTrue(usesLimit.lastModified() > compiled);
+    }
+
+    public void testIncrementalRecompilesUsersOfSubtypes() throws Exception {
+        File dir = new File("target/test-compile-incremental-subtype").getAbsoluteFile();
+        FileUtils.deleteDirectory(dir);
+        CompilerMojoTestBase.compile(
+                dir,
+                "Service",
+                "package main; public class Service { }\n"
+                        + "class Base { public void run() { } }\n"
+                        + "class Sub extends Base { }\n");
+        // The test class only refers to the subtype
+        writeTestSource(dir, "main/UsesSub.java", "package main; class UsesSub { void test() { new Sub().run(); } }");
+        writeTestSource(dir, "main/Other.java", "package main; class Other { }");
+        File usesSub = new File(dir, "test-classes/main/UsesSub.class");
+        File other = new File(dir, "test-classes/main/Other.class");
+        MavenProject project = createProject(dir);
+
+        createMojo(project, dir).execute();
+        long compiled = System.currentTimeMillis() - 60000;
+        usesSub.setLastModified(compiled);
+        other.setLastModified(compiled);
+        CompilerMojoTestBase.compile(
+                dir,
+                "Service",
+                "package main; public class Service { }\n"
+                        + "class Base { public int run() { return 1; } }\n"
+                        + "class Sub extends Base { }\n");
+        createMojo(project, dir).execute();
+        assertTrue(usesSub.lastModified() > compiled);
+        assertEquals(compiled, other.lastModified());
+    }
+
+    private static void writeTestSource(File dir, String path, String source) throws Exception {
+        File file = new File(dir, "src/test/java/" + path);
+        FileUtils.forceMkdir(file.getParentFile());
+        FileUtils.fileWrite(file, "UTF-8", source);
+    }
+
+    /**
+     * @return a project whose main classes are compiled to {@code dir/Service} and whose test sources are in
+     *         {@code dir/src/test/java}
+     */
+    private static MavenProject createProject(File dir) throws Exception {
+        MavenProject project = new MavenProject(new Model());
+        project.getBuild().setDirectory(dir.getPath());
+        project.getBuild().setOutputDirectory(new File(dir, "Service").getPath());
+        project.getBuild().setTestOutputDirectory(new File(dir, "test-classes").getPath());
+        project.addTestCompileSourceRoot(new File(dir, "src/test/java").getPath());
+        MockArtifact artifact = new MockArtifact("dill", "dall");
+        artifact.setArtifactHandler(new MockArtifactHandler());
+        project.setArtifact(artifact);
+        project.setArtifacts(Collections.singleton(CompilerMojoTestBase.createAspectjToolsArtifact()));
+        project.setDependencyArtifacts(Collections.emptySet());
+        return project;
+    }
+
+    private AjcTestCompileMojo createMojo(MavenProject project, File dir) throws Exception {
+        AjcTestCompileMojo mojo = new AjcTestCompileMojo();
+        mojo.project = project;
+        mojo.basedir = dir;
+        mojo.incremental = true;
+        setVariableValueToObject(
+                mojo, "outputDirectory", new File(project.getBuild().getTestOutputDirectory()));
+        setVariableValueToObject(mojo, "generatedTestSourcesDirectory", new File(dir, "generated-test-sources"));
+        return mojo;
+    }
 }
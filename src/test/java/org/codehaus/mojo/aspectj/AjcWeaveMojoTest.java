@@ -0,0 +1,91 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.testing.AbstractMojoTestCase;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests class {@link org.codehaus.mojo.aspectj.AjcWeaveMojo}
+ */
+public class AjcWeaveMojoTest extends AbstractMojoTestCase {
+
+    private static final String CLAZZ = "package org.codehaus.mojo.aspectj; class Clazz { void print() { } }";
+
+    public void testWeaveChangedClasses() throws Exception {
+        File dir = new File("target/weave-mojo").getAbsoluteFile();
+        FileUtils.deleteDirectory(dir);
+        File classes = CompilerMojoTestBase.compile(dir, "classes", CLAZZ);
+        File aspects = CompilerMojoTestBase.compile(
+                dir,
+                "aspects",
+                "package org.codehaus.mojo.aspectj; aspect Trace { before(): execution(* Clazz.print(..)) { } }",
+                classes);
+
+        DefaultArtifact aspectLibrary = new DefaultArtifact(
+                "org.example", "aspects", "1.0", "compile", "jar", null, new DefaultArtifactHandler("jar"));
+        aspectLibrary.setFile(aspects);
+        DefaultArtifact aspectjTools = CompilerMojoTestBase.createAspectjToolsArtifact();
+        MavenProject project = new MavenProject(new Model());
+        project.setArtifacts(new HashSet<>(Arrays.asList(aspectLibrary, aspectjTools)));
+        project.setDependencyArtifacts(Collections.emptySet());
+        Module module = new Module();
+        module.setGroupId("org.example");
+        module.setArtifactId("aspects");
+
+        AjcWeaveMojo mojo = new AjcWeaveMojo();
+        mojo.project = project;
+        mojo.aspectLibraries = new Module[] {module};
+        File workDirectory = new File(dir, "work");
+        setVariableValueToObject(mojo, "classesDirectory", classes);
+        setVariableValueToObject(mojo, "workDirectory", workDirectory);
+        mojo.execute();
+
+        File clazz = new File(classes, "org/codehaus/mojo/aspectj/Clazz.class");
+        File unwovenClazz = new File(workDirectory, "unwoven/org/codehaus/mojo/aspectj/Clazz.class");
+        assertTrue(FileUtils.fileRead(clazz, "ISO-8859-1").contains("Trace"));
+        assertFalse(FileUtils.fileRead(unwovenClazz, "ISO-8859-1").contains("Trace"));
+
+        // Nothing changed, the woven class is not woven again
+        long woven = clazz.lastModified();
+        Thread.sleep(1000);
+        mojo.execute();
+        assertEquals(woven, clazz.lastModified());
+
+        // Compiled again, e.g. by javac
+        CompilerMojoTestBase.compile(dir, "classes", CLAZZ);
+        assertFalse(FileUtils.fileRead(clazz, "ISO-8859-1").contains("Trace"));
+        mojo.execute();
+        assertTrue(FileUtils.fileRead(clazz, "ISO-8859-1").contains("Trace"));
+    }
+}
@@ -0,0 +1,77 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+
+/**
+ * Tests class {@link org.codehaus.mojo.aspectj.ArtifactIndex}
+ */
+public class ArtifactIndexTest extends TestCase {
+
+    private static Artifact artifact(String groupId, String artifactId, String classifier, String type) {
+        return new DefaultArtifact(
+                groupId, artifactId, "1.0", "compile", type, classifier, new DefaultArtifactHandler(type));
+    }
+
+    private static Module module(String groupId, String artifactId, String classifier, String type) {
+        Module module = new Module();
+        module.setGroupId(groupId);
+        module.setArtifactId(artifactId);
+        module.setClassifier(classifier);
+        module.setType(type);
+        return module;
+    }
+
+    public void testGet() {
+        Artifact jar = artifact("org.example", "aspects", null, "jar");
+        Artifact tests = artifact("org.example", "aspects", "tests", "jar");
+        Artifact zip = artifact("org.example", "aspects", null, "zip");
+        ArtifactIndex index = new ArtifactIndex(Arrays.asList(jar, tests, zip));
+
+        assertSame(jar, index.get(module("org.example", "aspects", null, null)));
+        assertSame(jar, index.get(module("org.example", "aspects", "", "jar")));
+        assertSame(tests, index.get(module("org.example", "aspects", "tests", null)));
+        assertSame(zip, index.get(module("org.example", "aspects", null, "zip")));
+        assertNull(index.get(module("org.example", "aspects", "sources", null)));
+    }
+
+    public void testNearMisses() {
+        Artifact aspects = artifact("org.example", "aspects", null, "jar");
+        Artifact other = artifact("org.example", "other", null, "jar");
+        ArtifactIndex index = new ArtifactIndex(Arrays.asList(aspects, other));
+
+        Module misspelled = module("org.exmaple", "aspects", null, null);
+        assertNull(index.get(misspelled));
+        assertEquals(Collections.singletonList(aspects), index.getNearMisses(misspelled));
+        assertTrue(index.getNearMisses(module("org.example", "unknown", null, null))
+                .isEmpty());
+    }
+}
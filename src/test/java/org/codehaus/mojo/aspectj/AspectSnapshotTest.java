@@ -0,0 +1,78 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests class {@link org.codehaus.mojo.aspectj.AspectSnapshot}
+ */
+public class AspectSnapshotTest extends TestCase {
+
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = new File("target/aspect-snapshot").getAbsoluteFile();
+        FileUtils.deleteDirectory(dir);
+    }
+
+    public void testWrite() throws Exception {
+        File buildFile = new File(dir, "builddef.lst");
+        FileUtils.forceMkdir(dir);
+        FileUtils.fileWrite(buildFile, "UTF-8", "");
+        buildFile.setLastModified(System.currentTimeMillis() - 10000);
+        File classes = CompilerMojoTestBase.compile(
+                dir,
+                "classes",
+                "class Clazz { void print() { } }\n"
+                        + "aspect Trace { interface Traced { } before(): execution(* Clazz.print(..)) { } }\n"
+                        + "@org.aspectj.lang.annotation.Aspect class AnnotatedTrace { }\n");
+
+        AspectSnapshot snapshot = new AspectSnapshot(new File(dir, "snapshot"));
+        assertFalse(snapshot.isCurrent(buildFile));
+        assertEquals(
+                Arrays.asList("AnnotatedTrace.class", "Trace$Traced.class", "Trace.class"), snapshot.write(classes));
+        assertTrue(snapshot.isCurrent(buildFile));
+        assertFalse(snapshot.isEmpty());
+        assertTrue(new File(snapshot.getDirectory(), "Trace.class").isFile());
+        assertFalse(new File(snapshot.getDirectory(), "Clazz.class").exists());
+
+        // The main compilation started again
+        buildFile.setLastModified(System.currentTimeMillis() + 10000);
+        assertFalse(snapshot.isCurrent(buildFile));
+    }
+
+    public void testWithoutAspects() throws Exception {
+        File classes = CompilerMojoTestBase.compile(dir, "classes", "class Clazz { }");
+
+        AspectSnapshot snapshot = new AspectSnapshot(new File(dir, "snapshot"));
+        assertTrue(snapshot.write(classes).isEmpty());
+        assertTrue(snapshot.isEmpty());
+    }
+}
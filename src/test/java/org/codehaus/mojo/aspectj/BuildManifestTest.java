@@ -0,0 +1,102 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests class {@link org.codehaus.mojo.aspectj.BuildManifest}
+ */
+public class BuildManifestTest extends TestCase {
+
+    private File dir;
+
+    private File first;
+
+    private File second;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = new File("target/build-manifest");
+        dir.mkdirs();
+        first = new File(dir, "First.java");
+        FileUtils.fileWrite(first, null, "class First {}");
+        second = new File(dir, "Second.java");
+        FileUtils.fileWrite(second, null, "class Second {}");
+    }
+
+    public void testWriteAndRead() throws Exception {
+        List<String> files = Arrays.asList(first.getAbsolutePath(), second.getAbsolutePath());
+        BuildManifest manifest = BuildManifest.create(files, null);
+        File manifestFile = new File(dir, "builddef.lst.manifest");
+        manifest.write(manifestFile);
+
+        BuildManifest read = BuildManifest.read(manifestFile);
+        assertEquals(manifest.getFiles(), read.getFiles());
+        assertTrue(read.getChangedFiles(manifest).isEmpty());
+        assertNull(BuildManifest.read(new File(dir, "missing.manifest")));
+    }
+
+    public void testRelocatedManifest() throws Exception {
+        List<String> files = Arrays.asList(first.getAbsolutePath(), second.getAbsolutePath());
+        BuildManifest manifest = BuildManifest.create(files, null);
+        File manifestFile = new File(dir, "relocated.manifest");
+        manifest.write(manifestFile, new RelocatablePaths(Collections.singletonMap("basedir", dir.getAbsoluteFile())));
+        assertFalse(FileUtils.fileRead(manifestFile).contains(dir.getAbsolutePath()));
+
+        // A copy of the project in another directory
+        File copy = new File("target/build-manifest-copy").getAbsoluteFile();
+        FileUtils.copyFileToDirectory(first, copy);
+        FileUtils.copyFileToDirectory(second, copy);
+        List<String> copiedFiles = Arrays.asList(
+                new File(copy, first.getName()).getAbsolutePath(), new File(copy, second.getName()).getAbsolutePath());
+
+        BuildManifest read =
+                BuildManifest.read(manifestFile, new RelocatablePaths(Collections.singletonMap("basedir", copy)));
+        assertEquals(new HashSet<>(copiedFiles), read.getFiles());
+        assertTrue(read.getChangedFiles(BuildManifest.create(copiedFiles, read)).isEmpty());
+    }
+
+    public void testChangedFilesByContent() throws Exception {
+        List<String> files = Arrays.asList(first.getAbsolutePath(), second.getAbsolutePath());
+        BuildManifest previous = BuildManifest.create(files, null);
+
+        assertTrue(second.setLastModified(second.lastModified() + 10000L));
+        assertTrue(
+                "Touching a file does not change it",
+                previous.getChangedFiles(BuildManifest.create(files, previous)).isEmpty());
+
+        FileUtils.fileWrite(first, null, "class First { int changed; }");
+        assertEquals(
+                Collections.singleton(first.getAbsolutePath()),
+                previous.getChangedFiles(BuildManifest.create(files, previous)));
+    }
+}
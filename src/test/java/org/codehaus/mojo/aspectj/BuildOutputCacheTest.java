@@ -0,0 +1,172 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.sun.net.httpserver.HttpServer;
+import junit.framework.TestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests class {@link org.codehaus.mojo.aspectj.BuildOutputCache}
+ */
+public class BuildOutputCacheTest extends TestCase {
+
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = new File("target/build-output-cache").getAbsoluteFile();
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private static void write(File file, String content) throws Exception {
+        FileUtils.forceMkdir(file.getParentFile());
+        FileUtils.fileWrite(file, "UTF-8", content);
+    }
+
+    private static RelocatablePaths paths(File basedir) {
+        return new RelocatablePaths(Collections.singletonMap("basedir", basedir));
+    }
+
+    private List<String> arguments(File basedir) {
+        return Arrays.asList(
+                "-classpath",
+                new File(basedir, "lib").getPath(),
+                "-d",
+                new File(basedir, "classes").getPath(),
+                new File(basedir, "src/Foo.java").getPath());
+    }
+
+    private void createProject(File basedir, String source) throws Exception {
+        write(new File(basedir, "src/Foo.java"), source);
+        write(new File(basedir, "lib/Bar.class"), "bar");
+        write(new File(basedir, "classes/Foo.class"), "previous output");
+    }
+
+    private String key(File basedir) throws Exception {
+        return BuildOutputCache.computeKey(
+                arguments(basedir), paths(basedir), Collections.singleton(new File(basedir, "classes")));
+    }
+
+    public void testKeyOfRelocatedProject() throws Exception {
+        File a = new File(dir, "a");
+        File b = new File(dir, "elsewhere/b");
+        createProject(a, "class Foo {}");
+        createProject(b, "class Foo {}");
+        write(new File(b, "classes/Foo.class"), "other output");
+        assertEquals(key(a), key(b));
+
+        write(new File(b, "lib/Bar.class"), "changed bar");
+        assertFalse(key(a).equals(key(b)));
+    }
+
+    public void testKeyIgnoresOutputSubdirectories() throws Exception {
+        File basedir = new File(dir, "staged");
+        createProject(basedir, "class Foo {}");
+        File staged = new File(basedir, "classes-inpath/1-lib-0");
+        write(new File(staged, "Bar.class"), "staged by the previous build");
+        List<String> arguments =
+                Arrays.asList("-inpath", staged.getPath(), new File(basedir, "src/Foo.java").getPath());
+        List<File> outputs = Arrays.asList(new File(basedir, "classes"), new File(basedir, "classes-inpath"));
+        String key = BuildOutputCache.computeKey(arguments, paths(basedir), outputs);
+
+        FileUtils.deleteDirectory(staged);
+        assertEquals(key, BuildOutputCache.computeKey(arguments, paths(basedir), outputs));
+    }
+
+    public void testDirectoryCache() throws Exception {
+        File basedir = new File(dir, "project");
+        createProject(basedir, "class Foo {}");
+        File classes = new File(basedir, "classes");
+        Map<String, List<Long>> snapshot = BuildOutputCache.snapshot(classes);
+        write(new File(classes, "foo/Woven.class"), "woven");
+        List<String> changed = BuildOutputCache.getChangedFiles(classes, snapshot);
+        assertEquals(Collections.singletonList("foo/Woven.class"), changed);
+
+        BuildOutputCache cache = BuildOutputCache.create(new File(dir, "cache").getPath());
+        assertFalse(cache.restore("key", classes));
+        cache.store("key", classes, changed);
+
+        File restored = new File(dir, "restored");
+        assertTrue(cache.restore("key", restored));
+        assertEquals("woven", FileUtils.fileRead(new File(restored, "foo/Woven.class"), "UTF-8"));
+        assertFalse(new File(restored, "Foo.class").exists());
+    }
+
+    public void testHttpCache() throws Exception {
+        final Map<String, byte[]> stored = new ConcurrentHashMap<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/cache/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            if ("PUT".equals(exchange.getRequestMethod())) {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                try (InputStream in = exchange.getRequestBody()) {
+                    byte[] buffer = new byte[4096];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        content.write(buffer, 0, read);
+                    }
+                }
+                stored.put(path, content.toByteArray());
+                exchange.sendResponseHeaders(201, -1);
+            } else if (stored.containsKey(path)) {
+                exchange.sendResponseHeaders(200, stored.get(path).length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(stored.get(path));
+                }
+            } else {
+                exchange.getRequestBody().close();
+                exchange.sendResponseHeaders(404, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            File classes = new File(dir, "classes");
+            write(new File(classes, "Foo.class"), "woven");
+            BuildOutputCache cache = BuildOutputCache.create(
+                    "http://localhost:" + server.getAddress().getPort() + "/cache");
+
+            File restored = new File(dir, "restored");
+            assertFalse(cache.restore("key", restored));
+            cache.store("key", classes, Collections.singletonList("Foo.class"));
+            assertTrue(stored.containsKey("/cache/key.zip"));
+            assertTrue(cache.restore("key", restored));
+            assertEquals("woven", FileUtils.fileRead(new File(restored, "Foo.class"), "UTF-8"));
+        } finally {
+            server.stop(0);
+        }
+    }
+}
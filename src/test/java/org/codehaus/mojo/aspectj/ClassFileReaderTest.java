@@ -0,0 +1,76 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.nio.file.Files;
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests class {@link org.codehaus.mojo.aspectj.ClassFileReader}
+ */
+public class ClassFileReaderTest extends TestCase {
+
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = new File("target/class-file-reader").getAbsoluteFile();
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private static ClassFileReader read(byte[] content) throws Exception {
+        return new ClassFileReader(new DataInputStream(new ByteArrayInputStream(content)));
+    }
+
+    public void testConstantPool() throws Exception {
+        File classes = CompilerMojoTestBase.compile(
+                dir, "classes", "class Service extends Thread { java.util.List<java.io.File> files; }");
+        ClassFileReader reader = read(Files.readAllBytes(new File(classes, "Service.class").toPath()));
+
+        assertTrue(reader.isClassFile());
+        assertFalse(reader.isAspect());
+        assertTrue(reader.getReferencedTypes().contains("java/lang/Thread"));
+        assertTrue(reader.getReferencedTypes().contains("java/util/List"));
+        assertTrue(reader.getReferencedTypes().contains("java/io/File"));
+        // The input is positioned at the access flags, followed by this and the super class
+        reader.getInput().readUnsignedShort();
+        assertEquals("Service", reader.className(reader.getInput().readUnsignedShort()));
+        assertEquals("java/lang/Thread", reader.className(reader.getInput().readUnsignedShort()));
+    }
+
+    public void testAspect() throws Exception {
+        File classes = CompilerMojoTestBase.compile(dir, "aspects", "aspect Trace { }");
+        assertTrue(read(Files.readAllBytes(new File(classes, "Trace.class").toPath()))
+                .isAspect());
+    }
+
+    public void testNotAClassFile() throws Exception {
+        assertFalse(read("not a class file".getBytes("UTF-8")).isClassFile());
+    }
+}
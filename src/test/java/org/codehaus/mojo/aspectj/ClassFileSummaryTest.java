@@ -0,0 +1,105 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests class {@link org.codehaus.mojo.aspectj.ClassFileSummary}
+ */
+public class ClassFileSummaryTest extends TestCase {
+
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = new File("target/class-file-summary").getAbsoluteFile();
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private ClassFileSummary summary(String name, String source) throws Exception {
+        File classes = CompilerMojoTestBase.compile(dir, name, source);
+        return ClassFileSummary.read(Files.readAllBytes(new File(classes, "Service.class").toPath()));
+    }
+
+    public void testAbiHash() throws Exception {
+        ClassFileSummary original = summary(
+                "original",
+                "class Service { static final int LIMIT = 1; private int calls; int call(String s) { return 1; } }");
+        ClassFileSummary changedBody = summary(
+                "body",
+                "class Service { static final int LIMIT = 1; private long calls; private void log() { }"
+                        + " int call(String s) { calls++; return s.length(); } }");
+        ClassFileSummary changedSignature = summary(
+                "signature",
+                "class Service { static final int LIMIT = 1; private int calls; int call(Object s) { return 1; } }");
+        ClassFileSummary changedConstant = summary(
+                "constant",
+                "class Service { static final int LIMIT = 2; private int calls; int call(String s) { return 1; } }");
+
+        assertEquals("Service", original.getName());
+        assertEquals("original.java", original.getSourceFile());
+        assertFalse(original.isAspect());
+        assertEquals(original.getAbiHash(), changedBody.getAbiHash());
+        assertFalse(original.getAbiHash().equals(changedSignature.getAbiHash()));
+        assertFalse(original.getAbiHash().equals(changedConstant.getAbiHash()));
+        assertEquals(original.getConstantsHash(), changedBody.getConstantsHash());
+        assertEquals(original.getConstantsHash(), changedSignature.getConstantsHash());
+        assertFalse(original.getConstantsHash().equals(changedConstant.getConstantsHash()));
+        assertEquals("-", summary("none", "class Service { }").getConstantsHash());
+    }
+
+    public void testSupertypes() throws Exception {
+        ClassFileSummary summary =
+                summary("supertypes", "class Service extends Thread implements java.io.Serializable { }");
+
+        assertEquals(Arrays.asList("java/lang/Thread", "java/io/Serializable"), summary.getSupertypes());
+    }
+
+    public void testReferencedTypes() throws Exception {
+        ClassFileSummary summary = summary(
+                "references",
+                "class Service { java.util.List<java.io.File> files; void run() { new StringBuilder(); } }");
+
+        assertTrue(summary.getReferencedTypes().contains("java/util/List"));
+        assertTrue(summary.getReferencedTypes().contains("java/io/File"));
+        assertTrue(summary.getReferencedTypes().contains("java/lang/StringBuilder"));
+        assertFalse(summary.getReferencedTypes().contains("Service"));
+    }
+
+    public void testAspect() throws Exception {
+        ClassFileSummary aspect =
+                summary("aspect", "aspect Service { before(): execution(* *(..)) && within(Service) { } }");
+        ClassFileSummary changedAdvice =
+                summary("advice", "aspect Service { before(): execution(* *(..)) && within(Service) { toString(); } }");
+
+        assertTrue(aspect.isAspect());
+        assertFalse(aspect.getAbiHash().equals(changedAdvice.getAbiHash()));
+    }
+}
@@ -24,13 +24,22 @@ package org.codehaus.mojo.aspectj;
  * SOFTWARE.
  */
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
 import org.apache.maven.artifact.handler.ArtifactHandler;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
 import org.apache.maven.model.Model;
+import org.apache.maven.plugin.logging.SystemStreamLog;
 import org.apache.maven.plugin.testing.AbstractMojoTestCase;
 import org.apache.maven.project.MavenProject;
+import org.aspectj.bridge.IMessage;
+import org.aspectj.bridge.MessageHandler;
+import org.aspectj.tools.ajc.Main;
 import org.codehaus.plexus.util.FileUtils;
 
 /**
@@ -95,4 +104,68 @@ public abstract class CompilerMojoTestBase extends AbstractMojoTestCase {
     }
 
     abstract String getProjectName();
+
+    /**
+     * Records the info and debug messages the mojo logs from now on.
+     *
+     * @return the recorded messages
+     */
+    List<String> recordLog() {
+        final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        ajcMojo.setLog(new SystemStreamLog() {
+            @Override
+            public boolean isDebugEnabled() {
+                return true;
+            }
+
+            @Override
+            public void debug(CharSequence content) {
+                messages.add(content.toString());
+            }
+
+            @Override
+            public void info(CharSequence content) {
+                messages.add(content.toString());
+            }
+        });
+        return messages;
+    }
+
+    /**
+     * @return the artifact of the AspectJ tools the tests run with, which also provides the AspectJ runtime
+     * @throws Exception if the location of the AspectJ tools cannot be determined
+     */
+    static DefaultArtifact createAspectjToolsArtifact() throws Exception {
+        DefaultArtifact aspectjTools = new DefaultArtifact(
+                "org.aspectj", "aspectjtools", "1.9.7", "compile", "jar", null, new DefaultArtifactHandler("jar"));
+        aspectjTools.setFile(
+                new File(IsolatedAjcCompiler.getAspectjToolsLocation().toURI()));
+        return aspectjTools;
+    }
+
+    /**
+     * Compiles a source into a directory of its own.
+     */
+    static File compile(File dir, String name, String source, File... classpath) throws Exception {
+        File sourceFile = new File(dir, "src/" + name + "/" + name + ".java");
+        FileUtils.forceMkdir(sourceFile.getParentFile());
+        FileUtils.fileWrite(sourceFile, "UTF-8", source);
+        File classes = new File(dir, name);
+        StringBuilder path =
+                new StringBuilder(IsolatedAjcCompiler.getAspectjToolsLocation().getPath());
+        for (File element : classpath) {
+            path.append(File.pathSeparator).append(element.getPath());
+        }
+        MessageHandler messages = new MessageHandler();
+        Main main = new Main();
+        main.setHolder(messages);
+        main.runMain(
+                new String[] {"-1.8", "-classpath", path.toString(), "-d", classes.getPath(), sourceFile.getPath()},
+                false);
+        assertEquals(
+                Arrays.toString(messages.getMessages(IMessage.ERROR, true)),
+                0,
+                messages.numMessages(IMessage.ERROR, true));
+        return classes;
+    }
 }
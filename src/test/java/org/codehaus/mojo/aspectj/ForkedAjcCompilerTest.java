@@ -0,0 +1,112 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+import org.aspectj.bridge.IMessage;
+import org.aspectj.bridge.Message;
+import org.aspectj.bridge.MessageHandler;
+import org.aspectj.bridge.SourceLocation;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests class {@link org.codehaus.mojo.aspectj.ForkedAjcCompiler}
+ */
+public class ForkedAjcCompilerTest extends TestCase {
+
+    public void testEncodeAndDecode() {
+        IMessage message = new Message(
+                "type\tname\nwith \\ special characters",
+                "",
+                IMessage.WEAVEINFO,
+                new SourceLocation(new File("/src/Foo.java"), 12, 14, 3, "  foo();"),
+                null,
+                null);
+        String line = ForkedAjcCompiler.encode(message);
+        assertFalse(line.contains("\n"));
+
+        IMessage decoded = ForkedAjcCompiler.decode(line);
+        assertEquals(message.getMessage(), decoded.getMessage());
+        assertEquals("", decoded.getDetails());
+        assertEquals(IMessage.WEAVEINFO, decoded.getKind());
+        assertEquals(new File("/src/Foo.java"), decoded.getSourceLocation().getSourceFile());
+        assertEquals(12, decoded.getSourceLocation().getLine());
+        assertEquals(14, decoded.getSourceLocation().getEndLine());
+        assertEquals(3, decoded.getSourceLocation().getColumn());
+        assertEquals("  foo();", decoded.getSourceLocation().getContext());
+
+        IMessage withoutLocation = ForkedAjcCompiler.decode(
+                ForkedAjcCompiler.encode(new Message("no location", null, IMessage.ERROR, null, null, null)));
+        assertEquals("no location", withoutLocation.getMessage());
+        assertNull(withoutLocation.getDetails());
+        assertNull(withoutLocation.getSourceLocation());
+    }
+
+    public void testForkedCompile() throws Exception {
+        File dir = new File("target/forked-compiler").getAbsoluteFile();
+        FileUtils.deleteDirectory(dir);
+        dir.mkdirs();
+        File valid = new File(dir, "Valid.java");
+        FileUtils.fileWrite(valid, null, "public class Valid { }");
+        File broken = new File(dir, "Broken.java");
+        FileUtils.fileWrite(broken, null, "public class Broken { Missing missing; }");
+        AjcHelper.writeBuildConfigToFile(
+                Arrays.asList(
+                        "-1.8",
+                        "-d",
+                        new File(dir, "classes").getAbsolutePath(),
+                        valid.getAbsolutePath(),
+                        broken.getAbsolutePath()),
+                "builddef.lst",
+                dir);
+
+        ForkedAjcCompiler compiler = new ForkedAjcCompiler(
+                ForkedAjcCompiler.getDefaultJavaExecutable(), Collections.singletonList("-Xmx128m"), dir);
+        MessageHandler messages = new MessageHandler();
+        compiler.run(new File(dir, "builddef.lst"), messages);
+
+        IMessage[] errors = messages.getMessages(IMessage.ERROR, true);
+        assertEquals(1, errors.length);
+        assertTrue(errors[0].getMessage(), errors[0].getMessage().contains("Missing"));
+        assertEquals(broken, errors[0].getSourceLocation().getSourceFile());
+        assertEquals(1, errors[0].getSourceLocation().getLine());
+    }
+
+    public void testFailingJvm() throws Exception {
+        File dir = new File("target/forked-compiler-failing").getAbsoluteFile();
+        dir.mkdirs();
+        ForkedAjcCompiler compiler = new ForkedAjcCompiler(
+                ForkedAjcCompiler.getDefaultJavaExecutable(), Collections.singletonList("-XX:NoSuchOption"), dir);
+        MessageHandler messages = new MessageHandler();
+        compiler.run(new File(dir, "builddef.lst"), messages);
+
+        IMessage[] errors = messages.getMessages(IMessage.ERROR, true);
+        assertEquals(1, errors.length);
+        assertEquals(IMessage.ABORT, errors[0].getKind());
+    }
+}
@@ -0,0 +1,102 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests class {@link org.codehaus.mojo.aspectj.InpathFilter}
+ */
+public class InpathFilterTest extends TestCase {
+
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = new File("target/inpath-filter").getAbsoluteFile();
+        FileUtils.deleteDirectory(dir);
+        FileUtils.forceMkdir(dir);
+    }
+
+    public void testStageJar() throws Exception {
+        File jar = new File(dir, "lib.jar");
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jar))) {
+            for (String name : new String[] {
+                "META-INF/MANIFEST.MF",
+                "com/example/service/Service.class",
+                "com/example/service/internal/Helper.class",
+                "com/example/model/Model.class",
+                "com/example/model/messages.properties"
+            }) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write(name.getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        File output = new File(dir, "classes");
+        InpathFilter filter = new InpathFilter(
+                jar,
+                new String[] {"com/example/service/"},
+                new String[] {"**/internal/**"},
+                new File(dir, "inpath"),
+                1);
+
+        assertEquals(1, filter.stage(output));
+        File staged = filter.getStagingDirectory();
+        assertTrue(new File(staged, "com/example/service/Service.class").isFile());
+        assertFalse(new File(staged, "com/example/service/internal/Helper.class").exists());
+        assertFalse(new File(staged, "com/example/model/Model.class").exists());
+        assertEquals(
+                "com/example/service/internal/Helper.class",
+                FileUtils.fileRead(new File(output, "com/example/service/internal/Helper.class"), "UTF-8"));
+        assertTrue(new File(output, "com/example/model/Model.class").isFile());
+        assertTrue(new File(output, "com/example/model/messages.properties").isFile());
+        assertFalse(new File(output, "com/example/service/Service.class").exists());
+        assertFalse(new File(output, "META-INF/MANIFEST.MF").exists());
+    }
+
+    public void testStageDirectory() throws Exception {
+        File classes = new File(dir, "weave");
+        FileUtils.forceMkdir(new File(classes, "a"));
+        FileUtils.forceMkdir(new File(classes, "b"));
+        FileUtils.fileWrite(new File(classes, "a/A.class"), "UTF-8", "A");
+        FileUtils.fileWrite(new File(classes, "b/B.class"), "UTF-8", "B");
+        File output = new File(dir, "classes");
+        InpathFilter filter = new InpathFilter(classes, null, new String[] {"b/**"}, new File(dir, "inpath"), 1);
+
+        assertEquals(1, filter.stage(output));
+        assertTrue(new File(filter.getStagingDirectory(), "a/A.class").isFile());
+        assertEquals("B", FileUtils.fileRead(new File(output, "b/B.class"), "UTF-8"));
+
+        InpathFilter other = new InpathFilter(classes, null, new String[] {"a/**"}, new File(dir, "inpath"), 1);
+        assertFalse(filter.getStagingDirectory().equals(other.getStagingDirectory()));
+    }
+}
@@ -0,0 +1,63 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests class {@link org.codehaus.mojo.aspectj.InpathPartitioner}
+ */
+public class InpathPartitionerTest extends TestCase {
+
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = new File("target/inpath-partitioner").getAbsoluteFile();
+        FileUtils.deleteDirectory(dir);
+    }
+
+    public void testPartition() throws Exception {
+        File b = CompilerMojoTestBase.compile(dir, "B", "public class B { }");
+        File a = CompilerMojoTestBase.compile(dir, "A", "public class A { java.util.List<B> bs; }", b);
+        File c = CompilerMojoTestBase.compile(dir, "C", "public class C { void run() { System.out.println(); } }");
+
+        List<List<String>> groups = InpathPartitioner.partition(Arrays.asList(a.getPath(), c.getPath(), b.getPath()));
+
+        assertEquals(Arrays.asList(Arrays.asList(a.getPath(), b.getPath()), Arrays.asList(c.getPath())), groups);
+    }
+
+    public void testAspectPreventsPartitioning() throws Exception {
+        File a = CompilerMojoTestBase.compile(dir, "A", "public class A { }");
+        File aspect =
+                CompilerMojoTestBase.compile(dir, "Trace", "public aspect Trace { before(): execution(* *(..)) { } }");
+
+        assertNull(InpathPartitioner.partition(Arrays.asList(a.getPath(), aspect.getPath())));
+    }
+}
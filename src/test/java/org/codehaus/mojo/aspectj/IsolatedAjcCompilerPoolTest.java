@@ -0,0 +1,67 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import junit.framework.TestCase;
+
+/**
+ * Tests class {@link org.codehaus.mojo.aspectj.IsolatedAjcCompilerPool}
+ */
+public class IsolatedAjcCompilerPoolTest extends TestCase {
+
+    public void testReuseAndEviction() throws Exception {
+        IsolatedAjcCompilerPool pool = IsolatedAjcCompilerPool.getInstance();
+        IsolatedAjcCompiler compiler = pool.borrow();
+        pool.release(compiler, 60000L);
+        assertEquals(1, pool.getIdleCount());
+        assertSame("The idle compiler is reused", compiler, pool.borrow());
+        assertEquals(0, pool.getIdleCount());
+
+        pool.release(compiler, 1L);
+        Thread.sleep(10L);
+        pool.evictIdleCompilers();
+        assertEquals("The expired compiler is evicted", 0, pool.getIdleCount());
+        IsolatedAjcCompiler newCompiler = pool.borrow();
+        assertNotSame(compiler, newCompiler);
+
+        pool.release(newCompiler, 0L);
+        assertEquals("A compiler without idle timeout is not kept", 0, pool.getIdleCount());
+    }
+
+    public void testMaxIdleCompilers() throws Exception {
+        IsolatedAjcCompilerPool pool = IsolatedAjcCompilerPool.getInstance();
+        IsolatedAjcCompiler leastRecentlyUsed = new IsolatedAjcCompiler();
+        pool.release(leastRecentlyUsed, 60000L);
+        for (int i = 1; i <= IsolatedAjcCompilerPool.MAX_IDLE_COMPILERS; i++) {
+            pool.release(new IsolatedAjcCompiler(), 60000L);
+        }
+        assertEquals(IsolatedAjcCompilerPool.MAX_IDLE_COMPILERS, pool.getIdleCount());
+        for (int i = 0; i < IsolatedAjcCompilerPool.MAX_IDLE_COMPILERS; i++) {
+            IsolatedAjcCompiler compiler = pool.borrow();
+            assertNotSame("The least recently used compiler is closed", leastRecentlyUsed, compiler);
+            compiler.close();
+        }
+        assertEquals(0, pool.getIdleCount());
+    }
+}
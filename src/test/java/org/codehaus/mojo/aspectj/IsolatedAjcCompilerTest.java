@@ -0,0 +1,75 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+
+import junit.framework.TestCase;
+import org.aspectj.bridge.IMessage;
+import org.aspectj.bridge.MessageHandler;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests class {@link org.codehaus.mojo.aspectj.IsolatedAjcCompiler}
+ */
+public class IsolatedAjcCompilerTest extends TestCase {
+
+    public void testConcurrentCompilers() throws Exception {
+        final File dir = new File("target/isolated-compiler").getAbsoluteFile();
+        FileUtils.deleteDirectory(dir);
+        dir.mkdirs();
+        final File valid = new File(dir, "Valid.java");
+        FileUtils.fileWrite(valid, null, "public class Valid { }");
+        final File broken = new File(dir, "Broken.java");
+        FileUtils.fileWrite(broken, null, "public class Broken { Missing missing; }");
+
+        final MessageHandler validMessages = new MessageHandler();
+        final MessageHandler brokenMessages = new MessageHandler();
+        Thread validThread = new Thread(() -> compile(valid, new File(dir, "valid-classes"), validMessages));
+        Thread brokenThread = new Thread(() -> compile(broken, new File(dir, "broken-classes"), brokenMessages));
+        validThread.start();
+        brokenThread.start();
+        validThread.join();
+        brokenThread.join();
+
+        assertTrue(new File(dir, "valid-classes/Valid.class").exists());
+        assertEquals(0, validMessages.numMessages(IMessage.ERROR, true));
+
+        IMessage[] errors = brokenMessages.getMessages(IMessage.ERROR, true);
+        assertEquals(1, errors.length);
+        assertTrue(errors[0].getMessage(), errors[0].getMessage().contains("Missing"));
+        assertEquals(
+                broken.getName(), errors[0].getSourceLocation().getSourceFile().getName());
+        assertEquals(1, errors[0].getSourceLocation().getLine());
+    }
+
+    private static void compile(File source, File outputDirectory, MessageHandler messages) {
+        try (IsolatedAjcCompiler compiler = new IsolatedAjcCompiler()) {
+            compiler.run(
+                    new String[] {"-1.8", "-d", outputDirectory.getAbsolutePath(), source.getAbsolutePath()}, messages);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
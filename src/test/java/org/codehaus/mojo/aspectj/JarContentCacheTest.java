@@ -0,0 +1,115 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.TestCase;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Tests class {@link org.codehaus.mojo.aspectj.JarContentCache}
+ */
+public class JarContentCacheTest extends TestCase {
+
+    private File dir;
+
+    @Override
+    protected void setUp() {
+        dir = new File("target/jar-content-cache").getAbsoluteFile();
+        dir.mkdirs();
+    }
+
+    public void testContent() throws Exception {
+        File jar = writeJar("classes.jar", "foo/Bar.class", "foo/Bar$Inner.class", "foo/bar.properties");
+
+        JarContentCache.JarContent content = JarContentCache.getInstance().getContent(jar);
+        assertTrue(content.hasClasses());
+        assertFalse(content.hasServices());
+        assertSame(content, JarContentCache.getInstance().getContent(jar));
+
+        writeJar("classes.jar", "foo/bar.properties");
+        jar.setLastModified(jar.lastModified() + 2000);
+        JarContentCache.JarContent changedContent =
+                JarContentCache.getInstance().getContent(jar);
+        assertNotSame(content, changedContent);
+        assertFalse(changedContent.hasClasses());
+    }
+
+    public void testJarsWithoutClasses() throws Exception {
+        File classes = writeJar("with-classes.jar", "foo/Bar.class");
+        File resources = writeJar("resources.jar", "META-INF/resources/index.html");
+        File services = writeJar("services.jar", "META-INF/services/javax.annotation.processing.Processor");
+        File directory = new File(dir, "classes");
+        directory.mkdirs();
+
+        List<File> files = Arrays.asList(classes, resources, services, directory);
+        assertEquals(Collections.singleton(resources), AjcHelper.getJarsWithoutClasses(files));
+        List<JarContentCache.JarContent> contents =
+                JarContentCache.getInstance().getContents(Arrays.asList(classes, resources, services));
+        assertEquals(resources, contents.get(1).getJar());
+        assertTrue(contents.get(2).hasServices());
+
+        MavenProject project = new MavenProject();
+        project.setArtifacts(new LinkedHashSet<>(Arrays.asList(
+                createArtifact("with-classes", classes),
+                createArtifact("resources", resources),
+                createArtifact("services", services))));
+        String all = AjcHelper.createClassPath(project, null, Collections.emptyList());
+        assertTrue(all, all.contains(resources.getName()));
+        assertEquals(
+                classes.getAbsolutePath() + File.pathSeparator + services.getAbsolutePath(),
+                AjcHelper.createClassPath(project, null, Collections.emptyList(), true));
+    }
+
+    private static Artifact createArtifact(String artifactId, File file) {
+        DefaultArtifact artifact = new DefaultArtifact(
+                "group", artifactId, "1.0", "compile", "jar", null, new DefaultArtifactHandler("jar"));
+        artifact.setFile(file);
+        return artifact;
+    }
+
+    private File writeJar(String name, String... entries) throws IOException {
+        File jar = new File(dir, name);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+            for (String entry : entries) {
+                out.putNextEntry(new ZipEntry(entry));
+                out.write(1);
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+}
@@ -0,0 +1,101 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.aspectj.bridge.IMessage;
+import org.aspectj.bridge.Message;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests class {@link org.codehaus.mojo.aspectj.MavenMessageHandler}
+ */
+public class MavenMessageHandlerTest extends TestCase {
+
+    public void testStreaming() throws Exception {
+        File messageFile = new File("target/message-handler/messages.txt");
+        MavenMessageHandler handler = new MavenMessageHandler(new SystemStreamLog());
+        handler.setStreaming(true);
+        handler.setMessageFile(messageFile);
+        handler.dontIgnore(IMessage.WEAVEINFO);
+        handler.ignore(IMessage.INFO);
+
+        for (int i = 0; i < 1000; i++) {
+            handler.handleMessage(new Message("advised " + i, IMessage.WEAVEINFO, null, null));
+        }
+        handler.handleMessage(new Message("ignored", IMessage.INFO, null, null));
+        handler.handleMessage(new Message("warning", IMessage.WARNING, null, null));
+        handler.handleMessage(new Message("error", IMessage.ERROR, null, null));
+        handler.close();
+
+        assertEquals(1, handler.getUnmodifiableListView().size());
+        assertEquals(1, handler.getMessages(IMessage.ERROR, true).length);
+        assertEquals(1000, handler.numMessages(IMessage.WEAVEINFO, false));
+        assertEquals(0, handler.numMessages(IMessage.INFO, false));
+        assertEquals(1002, handler.numMessages(IMessage.WEAVEINFO, true));
+        assertTrue(handler.hasAnyMessage(IMessage.WARNING, false));
+
+        String messages = FileUtils.fileRead(messageFile, "UTF-8");
+        assertTrue(messages.startsWith("weaveinfo: advised 0"));
+        assertTrue(messages.contains("warning: warning"));
+        assertFalse(messages.contains("ignored"));
+    }
+
+    public void testMessageFileReplacesLogBelowWarnings() throws Exception {
+        File messageFile = new File("target/message-handler/debug-messages.txt");
+        final List<String> logged = new ArrayList<>();
+        MavenMessageHandler handler = new MavenMessageHandler(new SystemStreamLog() {
+            @Override
+            public boolean isDebugEnabled() {
+                return true;
+            }
+
+            @Override
+            public void debug(CharSequence content) {
+                logged.add(content.toString());
+            }
+
+            @Override
+            public void warn(CharSequence content) {
+                logged.add(content.toString());
+            }
+        });
+        handler.setMessageFile(messageFile);
+        handler.dontIgnore(IMessage.DEBUG);
+        handler.handleMessage(new Message("debug", IMessage.DEBUG, null, null));
+        handler.handleMessage(new Message("warning", IMessage.WARNING, null, null));
+        handler.close();
+
+        assertEquals(logged.toString(), 1, logged.size());
+        assertTrue(logged.get(0).startsWith("warning"));
+        String messages = FileUtils.fileRead(messageFile, "UTF-8");
+        assertTrue(messages.contains("debug: debug"));
+        assertTrue(messages.contains("warning: warning"));
+    }
+}
@@ -0,0 +1,93 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests class {@link org.codehaus.mojo.aspectj.RelocatablePaths}
+ */
+public class RelocatablePathsTest extends TestCase {
+
+    private static RelocatablePaths paths(String basedir, String localRepository) {
+        Map<String, File> roots = new LinkedHashMap<>();
+        roots.put("basedir", new File(basedir));
+        roots.put("rootdir", null);
+        roots.put("localRepository", new File(localRepository));
+        return new RelocatablePaths(roots);
+    }
+
+    private static String path(String path) {
+        return new File(path).getAbsolutePath();
+    }
+
+    public void testRelativize() {
+        RelocatablePaths paths = paths("/work/a/project", "/work/a/project/.m2/repository");
+        List<String> arguments = Arrays.asList(
+                "-classpath",
+                path("/work/a/project/.m2/repository/foo/foo.jar")
+                        + File.pathSeparator
+                        + path("/opt/lib/bar.jar")
+                        + File.pathSeparator
+                        + path("/work/a/project/target/classes"),
+                "-d",
+                path("/work/a/project"),
+                "-Xlint:ignore",
+                path("/work/a/project-other/Foo.java"));
+
+        assertEquals(
+                Arrays.asList(
+                        "-classpath",
+                        "${localRepository}/foo/foo.jar" + File.pathSeparator + path("/opt/lib/bar.jar")
+                                + File.pathSeparator + "${basedir}/target/classes",
+                        "-d",
+                        "${basedir}",
+                        "-Xlint:ignore",
+                        path("/work/a/project-other/Foo.java")),
+                paths.relativize(arguments));
+    }
+
+    public void testResolveInOtherLocation() {
+        List<String> relative = paths("/work/a/project", "/home/a/.m2/repository")
+                .relativize(Arrays.asList(
+                        path("/home/a/.m2/repository/foo/foo.jar")
+                                + File.pathSeparator
+                                + path("/work/a/project/target/classes"),
+                        path("/work/a/project/src/main/java/Foo.java")));
+
+        assertEquals(
+                Arrays.asList(
+                        path("/home/b/.m2/repository/foo/foo.jar")
+                                + File.pathSeparator
+                                + path("/agent/b/project/target/classes"),
+                        path("/agent/b/project/src/main/java/Foo.java")),
+                paths("/agent/b/project", "/home/b/.m2/repository").resolve(relative));
+    }
+}
@@ -0,0 +1,64 @@
+package org.codehaus.mojo.aspectj;
+
+/**
+ * The MIT License
+ *
+ * Copyright 2005-2006 The Codehaus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests class {@link org.codehaus.mojo.aspectj.WeaveInfoWriter}
+ */
+public class WeaveInfoWriterTest extends TestCase {
+
+    public void testParseAdvisedJoinPoint() {
+        assertEquals(
+                Arrays.asList(
+                        "around with runtime test", "A", "A.aj:6", "field-get(int Foo.x)", "Foo", "Foo.java", "3"),
+                Arrays.asList(WeaveInfoWriter.parse("Join point 'field-get(int Foo.x)' in Type 'Foo' (Foo.java:3)"
+                        + " advised by around advice from 'A' (A.aj:6) [with runtime test]")));
+        assertEquals(
+                Arrays.asList(
+                        "before", "A", "A.aj:4", "method-execution(void Foo.bar())", "Foo", "no debug info", null),
+                Arrays.asList(WeaveInfoWriter.parse("Join point 'method-execution(void Foo.bar())' in Type 'Foo'"
+                        + " (no debug info) advised by before advice from 'A' (A.aj:4)")));
+    }
+
+    public void testParseDeclarations() {
+        String annotated = "'Foo' (Foo.java:1) is annotated with @Deprecated type annotation from 'A' (A.aj:7)";
+        assertEquals(
+                Arrays.asList("declare annotation", "A", "A.aj:7", annotated, "Foo", "Foo.java", "1"),
+                Arrays.asList(WeaveInfoWriter.parse(annotated)));
+
+        String parents = "Extending interface set for type 'Foo' (Foo.java) to include 'java.io.Serializable' (A.aj)";
+        assertEquals(
+                Arrays.asList("declare parents", null, "A.aj", parents, "Foo", "Foo.java", null),
+                Arrays.asList(WeaveInfoWriter.parse(parents)));
+
+        String intertype = "Type 'Foo' (Foo.java) has intertyped method from 'A' (A.aj:'void Foo.m()')";
+        assertEquals(
+                Arrays.asList("intertype", "A", "A.aj:'void Foo.m()'", intertype, "Foo", "Foo.java", null),
+                Arrays.asList(WeaveInfoWriter.parse(intertype)));
+    }
+}